@@ -0,0 +1,128 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.LedFrame;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.biome.Biome;
+
+// Background fill taken from where the player is: the biome's sky color in dimensions with a sky, dimmed towards
+// night, and its fog color elsewhere. The world is sampled once a second and the biome looked up only after the
+// player moved to another block; colors are cached per biome. Changes fade in over a couple of seconds, written a
+// few steps at a time since every background write redraws the whole keyboard.
+final class AmbientTheme {
+    private static final int UNRESOLVED = -1;
+    private static final int SAMPLE_INTERVAL_TICKS = 20;
+    private static final int TRANSITION_TICKS = 40;
+    private static final int STEP_TICKS = 5;
+    // Biome colors are pale; keep the fill well under the brightness of lit keys.
+    private static final int BRIGHTNESS_PERCENT = 35;
+    private static final int NIGHT_PERCENT = 30;
+    private static final int DAYLIGHT_STEPS = 8;
+    private static final long DAY_TICKS = 24000L;
+
+    private final LightHandler handler;
+    private final Reference2IntOpenHashMap<Holder<Biome>> biomeColors = new Reference2IntOpenHashMap<>();
+    private Level level;
+    private long position;
+    private int biomeColor;
+    private int sampleTicks;
+    private int from = UNRESOLVED;
+    private int target = UNRESOLVED;
+    // Fill last written to the keyboard; UNRESOLVED until the first write after the base lighting was drawn.
+    private int current = UNRESOLVED;
+    private int progress;
+
+    AmbientTheme(LightHandler handler) {
+        this.handler = handler;
+        biomeColors.defaultReturnValue(UNRESOLVED);
+    }
+
+    void update(LocalPlayer player, ConfigSnapshot settings) {
+        if (!settings.isAmbientThemeEnabled()) {
+            return;
+        }
+        if (--sampleTicks <= 0) {
+            sampleTicks = SAMPLE_INTERVAL_TICKS;
+            sample(player);
+        }
+        if (target == UNRESOLVED || current == target) {
+            return;
+        }
+        if (current == UNRESOLVED || ++progress >= TRANSITION_TICKS) {
+            write(target);
+        } else if (progress % STEP_TICKS == 0) {
+            write(lerp(from, target, progress));
+        }
+    }
+
+    // The base lighting was redrawn with the configured fill: sample straight away and write without fading.
+    void invalidate() {
+        level = null;
+        sampleTicks = 0;
+        current = UNRESOLVED;
+    }
+
+    // Biome holders are rebuilt with the registries when joining a world.
+    void clearCache() {
+        biomeColors.clear();
+        level = null;
+    }
+
+    private void sample(LocalPlayer player) {
+        Level level = player.level();
+        if (level == null) {
+            return;
+        }
+        BlockPos blockPosition = player.blockPosition();
+        boolean skyLight = level.dimensionType().hasSkyLight();
+        if (level != this.level || blockPosition.asLong() != position) {
+            this.level = level;
+            position = blockPosition.asLong();
+            Holder<Biome> biome = level.getBiome(blockPosition);
+            int color = biomeColors.getInt(biome);
+            if (color == UNRESOLVED) {
+                color = (skyLight ? biome.value().getSkyColor() : biome.value().getFogColor()) & 0xFFFFFF;
+                biomeColors.put(biome, color);
+            }
+            biomeColor = color;
+        }
+        int color = skyLight ? LedFrame.scale(biomeColor, daylightPercent(level.getDayTime())) : biomeColor;
+        color = LedFrame.scale(color, BRIGHTNESS_PERCENT);
+        if (color != target) {
+            from = current == UNRESOLVED ? color : current;
+            target = color;
+            progress = 0;
+        }
+    }
+
+    private void write(int color) {
+        if (color != current) {
+            handler.setBackgroundColor(color);
+            current = color;
+        }
+    }
+
+    // Full brightness at noon down to NIGHT_PERCENT at midnight, in a few steps so the fill is not rewritten every sample.
+    private static int daylightPercent(long dayTime) {
+        double daylight = 0.5 + 0.5 * Math.sin((dayTime % DAY_TICKS) / (double) DAY_TICKS * 2.0 * Math.PI);
+        int step = (int) Math.round(daylight * DAYLIGHT_STEPS);
+        return NIGHT_PERCENT + (100 - NIGHT_PERCENT) * step / DAYLIGHT_STEPS;
+    }
+
+    private static int lerp(int from, int to, int progress) {
+        int red = channel(from >> 16, to >> 16, progress);
+        int green = channel(from >> 8, to >> 8, progress);
+        int blue = channel(from, to, progress);
+        return red << 16 | green << 8 | blue;
+    }
+
+    private static int channel(int from, int to, int progress) {
+        from &= 0xFF;
+        to &= 0xFF;
+        return from + (to - from) * progress / TRANSITION_TICKS;
+    }
+}
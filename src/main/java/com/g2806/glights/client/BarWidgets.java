@@ -0,0 +1,103 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.KeyRow;
+import net.minecraft.client.player.LocalPlayer;
+
+import java.util.Arrays;
+
+// Health, food, air and XP drawn as bars along a key row. Each bar quantizes its value to the keys in its row and
+// remembers how many it lit, so a tick writes only the keys between the old and the new count; unlit keys go back
+// to the base lighting. When two bars pick the same row, the first in this order keeps it.
+final class BarWidgets {
+    private static final int HEALTH = 0;
+    private static final int FOOD = 1;
+    private static final int AIR = 2;
+    private static final int XP = 3;
+    private static final int COUNT = 4;
+    private static final int[] COLOR_IDS = {ConfigManager.CATEGORY_ID_BAR_HEALTH, ConfigManager.CATEGORY_ID_BAR_FOOD,
+            ConfigManager.CATEGORY_ID_BAR_AIR, ConfigManager.CATEGORY_ID_BAR_XP};
+
+    private final LightHandler handler;
+    private final KeyRow[] rows = new KeyRow[COUNT];
+    // Keys each bar last lit; -1 forces the whole row to be redrawn.
+    private final int[] litKeys = new int[COUNT];
+    private int configVersion = -1;
+
+    BarWidgets(LightHandler handler) {
+        this.handler = handler;
+        Arrays.fill(rows, KeyRow.NONE);
+        Arrays.fill(litKeys, -1);
+    }
+
+    void update(LocalPlayer player, ConfigSnapshot settings) {
+        if (settings.getVersion() != configVersion) {
+            reload(settings);
+        }
+        for (int bar = 0; bar < COUNT; bar++) {
+            KeyRow row = rows[bar];
+            if (row != KeyRow.NONE) {
+                draw(bar, row, row.litKeys(valueOf(bar, player)), settings.getColor(COLOR_IDS[bar]));
+            }
+        }
+    }
+
+    // True when a bar is drawn over this key, so other layers leave it alone.
+    boolean owns(int scanCode) {
+        for (KeyRow row : rows) {
+            if (row.contains(scanCode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The next update redraws every bar, e.g. after the base lighting was redrawn underneath them.
+    void invalidate() {
+        Arrays.fill(litKeys, -1);
+    }
+
+    private static float valueOf(int bar, LocalPlayer player) {
+        return switch (bar) {
+            case HEALTH -> player.getMaxHealth() > 0.0F ? player.getHealth() / player.getMaxHealth() : 0.0F;
+            case FOOD -> player.getFoodData().getFoodLevel() / 20.0F;
+            // Full air is the normal state; the bar only shows while it is running out.
+            case AIR -> player.getAirSupply() < player.getMaxAirSupply() && player.getMaxAirSupply() > 0
+                    ? Math.max(0, player.getAirSupply()) / (float) player.getMaxAirSupply() : 0.0F;
+            default -> player.experienceProgress;
+        };
+    }
+
+    private void draw(int bar, KeyRow row, int count, int color) {
+        int previous = litKeys[bar];
+        if (count == previous) {
+            return;
+        }
+        litKeys[bar] = count;
+        int from = previous < 0 ? 0 : Math.min(previous, count);
+        int to = previous < 0 ? row.size() : Math.max(previous, count);
+        for (int i = from; i < to; i++) {
+            if (i < count) {
+                handler.setSolidColorOnScanCode(row.getScanCode(i), color);
+            } else {
+                handler.restoreBaseColor(row.getScanCode(i));
+            }
+        }
+    }
+
+    private void reload(ConfigSnapshot settings) {
+        configVersion = settings.getVersion();
+        KeyRow[] wanted = {settings.getHealthBarRow(), settings.getFoodBarRow(), settings.getAirBarRow(), settings.getXpBarRow()};
+        for (int bar = 0; bar < COUNT; bar++) {
+            KeyRow row = wanted[bar];
+            for (int earlier = 0; earlier < bar; earlier++) {
+                if (rows[earlier] == row) {
+                    row = KeyRow.NONE;
+                }
+            }
+            rows[bar] = row;
+        }
+        invalidate();
+    }
+}
@@ -1,17 +1,32 @@
 package com.g2806.glights.client;
 
+import com.g2806.glights.GLights;
 import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.effect.EffectEngine;
+import com.g2806.glights.client.effect.PlayerState;
+import com.g2806.glights.client.led.LatencyHistogram;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.LightEvent;
 import com.logitech.gaming.LogiLED;
 import com.mojang.blaze3d.platform.InputConstants;
-import it.unimi.dsi.fastutil.ints.Int2IntMap;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.EditBox;
+import net.minecraft.client.gui.screens.ChatScreen;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.client.gui.screens.inventory.AbstractSignEditScreen;
+import net.minecraft.client.gui.screens.inventory.BookEditScreen;
 import net.minecraft.client.multiplayer.ClientPacketListener;
 import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.client.resources.sounds.SoundInstance;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemCooldowns;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.effect.MobEffects;
 import net.minecraft.world.level.block.Blocks;
 import org.lwjgl.glfw.GLFW;
@@ -20,60 +35,82 @@ import java.util.Arrays;
 import java.util.Random;
 
 public final class EventHandler {
-    private enum SpecialEffect {
-        NONE,
-    DAMAGE_FLASH,
-    LOW_HEALTH,
-    UNDERWATER,
-    POISON,
-    WITHER,
-    FROZEN,
-    NETHER_PORTAL
-    }
-
     private final Minecraft client;
     private final LightHandler handler;
     private final ConfigManager config;
+    // Re-read at the start of each tick and callback, so one pass never mixes two published configs.
+    private ConfigSnapshot settings;
     private final int[] hotbarScanCodes = new int[9];
     private final int[] hotbarLogiKeys = new int[9];
+    // Item each hotbar key was last tinted for; null forces a repaint.
+    private final Item[] hotbarItems = new Item[9];
+    private final int[] hotbarItemColors = new int[9];
+    private final HotbarItemColors itemColors = new HotbarItemColors();
+    private final BarWidgets bars;
+    private final MobProximity mobs;
+    private final FlashRipple flashes;
+    private final SoundPulses sounds;
+    private final AmbientTheme ambient;
+    // Lit steps of each hotbar key's cooldown gauge as last drawn; -1 forces a repaint.
+    private final int[] gaugeLevels = new int[9];
     private static final int F3_KEYSYM = GLFW.GLFW_KEY_F3;
     private static final int F3_HOLD_THRESHOLD_TICKS = 5;
     private static final int F4_LOGI_KEY = LogiLED.F4;
-    private static final int EFFECT_TICK_MASK = (1 << 14) - 1;
+    // Power-save fades between full and dimmed base lighting in 10% steps; coming back is twice as fast.
+    private static final int IDLE_FADE_STEPS = 7;
+    private static final int IDLE_DIM_PERCENT = 30;
+    private static final int IDLE_PULSE_INTERVAL_MS = 2000;
+    // Cooldown gauges brighten in eighths from a floor that keeps the key distinguishable from an unlit one.
+    private static final int GAUGE_STEPS = 8;
+    private static final int GAUGE_MIN_PERCENT = 15;
 
     private boolean hotbarInitialized;
     private boolean windowFocused = true;
     private boolean dead;
     private int lastSelectedSlot = -1;
-    private SpecialEffect activeEffect = SpecialEffect.NONE;
-    private int damageFlashTicks;
+    private int lastInventoryChange;
+    private int lastHurtTime;
+    private long tickStartNanos;
     private boolean f3Held;
     private int f3HoldTicks;
     private boolean f4Lit;
-    private int effectTicks;
-    private int[] effectScanCodes = new int[0];
-    private final Random effectRandom = new Random();
+    private int idleFade;
+    private boolean typing;
+    private final PlayerState playerState = new PlayerState();
+    private final EffectEngine effects;
+    private final IdleMonitor idleMonitor;
 
     public EventHandler(Minecraft client, LightHandler handler, ConfigManager config) {
         this.client = client;
         this.handler = handler;
         this.config = config;
+        this.settings = config.current();
         Arrays.fill(hotbarScanCodes, -1);
         Arrays.fill(hotbarLogiKeys, -1);
+        Arrays.fill(gaugeLevels, -1);
+        this.effects = new EffectEngine(handler, config, this::restoreBaseLighting, new Random());
+        this.idleMonitor = new IdleMonitor(client);
+        this.bars = new BarWidgets(handler);
+        this.mobs = new MobProximity(client, handler);
+        this.flashes = new FlashRipple(handler);
+        this.sounds = new SoundPulses(handler);
+        this.ambient = new AmbientTheme(handler);
 
         handler.addRestartCallback(this::onHandlerRestart);
     }
 
     public void register() {
         ClientTickEvents.START_CLIENT_TICK.register(this::onClientTick);
+        ClientTickEvents.END_CLIENT_TICK.register(this::onClientTickEnd);
         ClientPlayConnectionEvents.JOIN.register((handler, sender, clientInstance) -> onJoin(handler, sender, clientInstance));
         ClientPlayConnectionEvents.DISCONNECT.register((handler, clientInstance) -> onDisconnect(handler, clientInstance));
     }
 
     private void onClientTick(Minecraft ignored) {
+        settings = config.current();
         handleFocus();
 
-        if (!config.isModEnabled()) {
+        if (!settings.isModEnabled()) {
             return;
         }
 
@@ -81,44 +118,157 @@ public final class EventHandler {
             return;
         }
 
+        if (handler.takeAbandonedPreview(System.nanoTime())) {
+            resetIdle();
+            effects.reapply();
+        }
+
         LocalPlayer player = client.player;
         if (player == null) {
             return;
         }
 
+        tickStartNanos = System.nanoTime();
         ensureHotbarCodes();
         handleDeathState(player);
+        if (updateTyping()) {
+            return;
+        }
+        if (updateIdle(player)) {
+            return;
+        }
         if (!dead) {
-            updateSpecialEffects(player);
+            PlayerState state = capturePlayerState(player);
+            if (state.getHurtTime() > lastHurtTime) {
+                handler.stampEvent(LightEvent.DAMAGE, tickStartNanos);
+            }
+            lastHurtTime = state.getHurtTime();
+            EffectEngine.SpecialEffect before = effects.getActiveEffect();
+            effects.update(state);
+            if (effects.getActiveEffect() != before && effects.isEffectActive()) {
+                handler.stampEvent(LightEvent.EFFECT, tickStartNanos);
+            }
         } else {
-            clearSpecialEffects(false);
+            effects.clear(false);
         }
 
-        if (activeEffect == SpecialEffect.NONE) {
+        if (!effects.isEffectActive()) {
+            updateHotbarItems(player);
             handleSelectedSlot(player);
+            updateGauges(player);
+            if (!dead) {
+                ambient.update(player, settings);
+                bars.update(player, settings);
+                mobs.update(player, settings);
+                // Ripples and pulses put back what their keys showed when they started; once they end, let the
+                // layers underneath redraw anything newer.
+                boolean rippleEnded = flashes.update(settings);
+                if (sounds.update() | rippleEnded) {
+                    invalidateKeyLayers();
+                }
+            }
         }
 
         updateFunctionKeyLighting();
     }
 
+    private void onClientTickEnd(Minecraft ignored) {
+        handler.commitFrame();
+    }
+
     private void handleFocus() {
         boolean focused = client.isWindowActive();
         if (windowFocused && !focused) {
             windowFocused = false;
             resetFunctionKeyLighting();
-            handler.shutdown(true);
-        } else if (!windowFocused && focused) {
-            if (!config.isModEnabled()) {
+            handler.release();
+        } else if (focused && (!windowFocused || !handler.isActive())) {
+            // Also retries, after the handler's backoff, an output that failed to initialise while focused.
+            if (!settings.isModEnabled()) {
                 windowFocused = true;
                 return;
             }
             if (handler.restart(true)) {
                 windowFocused = true;
                 if (dead) {
-                    handler.setSolidColor(config.getColorForCategory(ConfigManager.CATEGORY_DEAD));
+                    handler.beginOverlay(settings.getColor(ConfigManager.CATEGORY_ID_DEAD));
+                }
+            }
+        }
+        if (focused) {
+            handler.claimLeds();
+        }
+    }
+
+    // While a text field has the keyboard the frame is parked on static base lighting, committed once, and
+    // neither effects nor key polling run; closing the screen puts back exactly what was showing.
+    private boolean updateTyping() {
+        boolean nowTyping = !dead && !handler.isOverlayActive() && isTypingScreen(client.screen);
+        if (nowTyping == typing) {
+            return typing;
+        }
+        typing = nowTyping;
+        if (typing) {
+            handler.suspendDrawing();
+        } else {
+            handler.resumeDrawing();
+            idleMonitor.reset(tickStartNanos);
+        }
+        return typing;
+    }
+
+    private static boolean isTypingScreen(Screen screen) {
+        if (screen == null) {
+            return false;
+        }
+        return screen instanceof ChatScreen || screen instanceof AbstractSignEditScreen || screen instanceof BookEditScreen
+                || screen.getFocused() instanceof EditBox;
+    }
+
+    private void resetTyping() {
+        if (typing) {
+            typing = false;
+            handler.resumeDrawing();
+        }
+    }
+
+    // Returns true while power-save owns the frame. Once the fade-out finishes nothing is drawn, so the commit
+    // at the end of the tick finds an unchanged frame and makes no native calls.
+    private boolean updateIdle(LocalPlayer player) {
+        boolean idle = settings.isIdlePowerSaveEnabled() && !dead && !handler.isOverlayActive()
+                && idleMonitor.isIdle(player, settings, tickStartNanos);
+        if (idle) {
+            if (idleFade < IDLE_FADE_STEPS) {
+                idleFade++;
+                handler.drawIdleFrame(idlePercent());
+                if (idleFade == IDLE_FADE_STEPS && settings.isIdlePulseEnabled()) {
+                    handler.setPulsingColor(settings.getHighlightColor(), IDLE_PULSE_INTERVAL_MS);
                 }
             }
+            return true;
         }
+        if (idleFade == 0) {
+            return false;
+        }
+        idleFade = Math.max(0, idleFade - 2);
+        if (idleFade > 0 && !dead) {
+            handler.drawIdleFrame(idlePercent());
+            return true;
+        }
+        idleFade = 0;
+        if (!dead) {
+            effects.reapply();
+        }
+        return false;
+    }
+
+    private int idlePercent() {
+        return 100 - (100 - IDLE_DIM_PERCENT) * idleFade / IDLE_FADE_STEPS;
+    }
+
+    private void resetIdle() {
+        idleFade = 0;
+        idleMonitor.reset(System.nanoTime());
     }
 
     private void ensureHotbarCodes() {
@@ -137,24 +287,21 @@ public final class EventHandler {
         boolean currentlyDead = isPlayerDead(player);
         if (!dead && currentlyDead) {
             dead = true;
-            clearSpecialEffects(false);
-            handler.saveCurrentLighting();
-            handler.setSolidColor(config.getColorForCategory(ConfigManager.CATEGORY_DEAD));
+            effects.clear(false);
+            handler.stampEvent(LightEvent.DEATH, tickStartNanos);
+            handler.beginOverlay(settings.getColor(ConfigManager.CATEGORY_ID_DEAD));
         } else if (dead && !currentlyDead) {
             dead = false;
-            handler.restoreLastLighting();
+            handler.endOverlay();
             lastSelectedSlot = -1;
+            resetKeyLayers();
         }
     }
 
     private void handleSelectedSlot(LocalPlayer player) {
-        if (!config.isHighlightSelectedSlot()) {
+        if (!settings.isHighlightSelectedSlot()) {
             if (lastSelectedSlot >= 0) {
-                int previousCode = hotbarScanCodes[lastSelectedSlot];
-                int previousLogiKey = hotbarLogiKeys[lastSelectedSlot];
-                if (previousCode > 0 || previousLogiKey >= 0) {
-                    handler.setSolidColorOnResolvedKey(previousLogiKey, previousCode, config.getColorForCategory(ConfigManager.CATEGORY_INVENTORY));
-                }
+                paintSlot(lastSelectedSlot, gauged(lastSelectedSlot, slotBaseColor(lastSelectedSlot)));
                 lastSelectedSlot = -1;
             }
             return;
@@ -166,389 +313,235 @@ public final class EventHandler {
         }
 
         if (lastSelectedSlot != slot) {
-            if (lastSelectedSlot >= 0) {
-                int previousCode = hotbarScanCodes[lastSelectedSlot];
-                int previousLogiKey = hotbarLogiKeys[lastSelectedSlot];
-                if (previousCode > 0 || previousLogiKey >= 0) {
-                    handler.setSolidColorOnResolvedKey(previousLogiKey, previousCode, config.getColorForCategory(ConfigManager.CATEGORY_INVENTORY));
-                }
-            }
-
-            lastSelectedSlot = slot;
-            int code = hotbarScanCodes[slot];
-            int logiKey = hotbarLogiKeys[slot];
-            if (code > 0 || logiKey >= 0) {
-                handler.setSolidColorOnResolvedKey(logiKey, code, config.getHighlightColor());
-            }
+            handler.stampEvent(LightEvent.HOTBAR, tickStartNanos);
+            highlightSlot(slot);
         }
     }
 
-    private void onJoin(ClientPacketListener handler, PacketSender sender, Minecraft client) {
-        dead = false;
-        lastSelectedSlot = -1;
-        hotbarInitialized = false;
-        Arrays.fill(hotbarScanCodes, -1);
-        Arrays.fill(hotbarLogiKeys, -1);
-        resetFunctionKeyLighting();
-        clearSpecialEffects(false);
-        if (this.handler.isActive()) {
-            this.handler.initBaseLighting();
+    // Called from the Inventory mixin as soon as the selected slot changes, so the highlight does not wait for
+    // the next tick; only the two affected keys differ from what was last committed.
+    public void onSelectedSlotInput(int slot, long inputNanos) {
+        settings = config.current();
+        if (!settings.isModEnabled() || !settings.isHighlightSelectedSlot() || !handler.isActive() || handler.isOverlayActive()) {
+            return;
         }
-    }
-
-    private void onDisconnect(ClientPacketListener handler, Minecraft client) {
-        if (dead) {
-            dead = false;
-            this.handler.restoreLastLighting();
+        if (client.player == null || dead || typing || idleFade > 0 || effects.isEffectActive()) {
+            return;
         }
-        lastSelectedSlot = -1;
-        hotbarInitialized = false;
-        Arrays.fill(hotbarScanCodes, -1);
-        Arrays.fill(hotbarLogiKeys, -1);
-        resetFunctionKeyLighting();
-    }
-
-    private void onHandlerRestart() {
-        hotbarInitialized = false;
-        lastSelectedSlot = -1;
-        Arrays.fill(hotbarScanCodes, -1);
-        Arrays.fill(hotbarLogiKeys, -1);
-        resetFunctionKeyLighting();
-        effectTicks = 0;
-        effectScanCodes = new int[0];
-        if (activeEffect != SpecialEffect.NONE) {
-            applySpecialEffect(activeEffect, false);
-        } else {
-            handler.initBaseLighting();
-            resetHotbarHighlight();
+        if (slot < 0 || slot >= hotbarScanCodes.length || slot == lastSelectedSlot) {
+            return;
         }
+        ensureHotbarCodes();
+        handler.stampEvent(LightEvent.HOTBAR, inputNanos);
+        highlightSlot(slot);
+        handler.commitFrame();
     }
 
-    private static boolean isPlayerDead(LocalPlayer player) {
-        return player.isDeadOrDying() || player.getHealth() <= 0.0F || player.isRemoved();
-    }
-
-    private void updateSpecialEffects(LocalPlayer player) {
-        boolean poisonActive = config.isPoisonEffectEnabled() && player.hasEffect(MobEffects.POISON);
-        boolean witherActive = config.isWitherEffectEnabled() && player.hasEffect(MobEffects.WITHER);
-        boolean lowHealthActive = config.isLowHealthBlinkEnabled() && isLowHealth(player);
-
-        if (config.isDamageEffectEnabled() && !poisonActive && !witherActive && !lowHealthActive && player.hurtTime > 0) {
-            damageFlashTicks = 12;
-        } else if (!config.isDamageEffectEnabled() || poisonActive || witherActive || lowHealthActive) {
-            damageFlashTicks = 0;
-        } else if (damageFlashTicks > 0) {
-            damageFlashTicks--;
-        }
-
-        SpecialEffect desired = determineDesiredEffect(player, poisonActive, witherActive, lowHealthActive);
-        if (desired != activeEffect) {
-            applySpecialEffect(desired, true);
+    // Called from the packet mixin for each explosion or lightning strike; merged into one ripple on the next tick.
+    void onFlash(int kind, double x, double y, double z) {
+        settings = config.current();
+        if (!settings.isModEnabled() || !settings.isFlashEventsEnabled() || !handler.isActive() || handler.isOverlayActive()) {
+            return;
         }
-        if (activeEffect != SpecialEffect.NONE) {
-            tickActiveEffect();
+        LocalPlayer player = client.player;
+        if (player == null || dead || typing || idleFade > 0 || effects.isEffectActive()) {
+            return;
         }
+        flashes.offer(player, kind, x, y, z);
     }
 
-    private SpecialEffect determineDesiredEffect(LocalPlayer player, boolean poisonActive, boolean witherActive, boolean lowHealthActive) {
-        if (config.isDamageEffectEnabled() && damageFlashTicks > 0) {
-            return SpecialEffect.DAMAGE_FLASH;
-        }
-        if (lowHealthActive) {
-            return SpecialEffect.LOW_HEALTH;
-        }
-        if (config.isNetherPortalEffectEnabled() && isWaitingForNether(player)) {
-            return SpecialEffect.NETHER_PORTAL;
-        }
-        if (witherActive) {
-            return SpecialEffect.WITHER;
-        }
-        if (poisonActive) {
-            return SpecialEffect.POISON;
-        }
-        if (config.isFrozenEffectEnabled() && player.getTicksFrozen() > 0) {
-            return SpecialEffect.FROZEN;
+    // Called from the sound engine mixin for every sound that starts; turned into pulses on the next tick.
+    void onSound(SoundInstance sound) {
+        settings = config.current();
+        if (!settings.isModEnabled() || !settings.isSoundReactiveEnabled() || !handler.isActive() || handler.isOverlayActive()) {
+            return;
         }
-        if (config.isUnderwaterEffectEnabled() && player.isUnderWater()) {
-            return SpecialEffect.UNDERWATER;
+        LocalPlayer player = client.player;
+        if (player == null || dead || typing || idleFade > 0 || effects.isEffectActive()) {
+            return;
         }
-        return SpecialEffect.NONE;
+        sounds.offer(sound, player, settings);
     }
 
-    private void applySpecialEffect(SpecialEffect effect, boolean restoreBaseAfterNone) {
-        if (!handler.isActive()) {
-            activeEffect = effect;
-            return;
+    private void highlightSlot(int slot) {
+        handler.setDrawPriority(LedFrame.PRIORITY_CRITICAL);
+        if (lastSelectedSlot >= 0) {
+            paintSlot(lastSelectedSlot, gauged(lastSelectedSlot, slotBaseColor(lastSelectedSlot)));
         }
 
-        handler.stopEffects();
-        effectTicks = 0;
-        effectScanCodes = new int[0];
-
-        activeEffect = effect;
-
-        if (effect == SpecialEffect.NONE) {
-            if (restoreBaseAfterNone) {
-                handler.initBaseLighting();
-                resetHotbarHighlight();
-            }
-        } else {
-            captureEffectScanCodes();
-            tickActiveEffect();
-        }
+        lastSelectedSlot = slot;
+        paintSlot(slot, gauged(slot, settings.getHighlightColor()));
+        handler.setDrawPriority(LedFrame.PRIORITY_NORMAL);
     }
 
-    private void tickActiveEffect() {
-        if (!handler.isActive() || activeEffect == SpecialEffect.NONE) {
+    // Re-tints the hotbar keys whose slot now holds a different item. The inventory's change counter gates the
+    // scan, so a quiet tick costs one int compare, and a new item costs one cache lookup.
+    private void updateHotbarItems(LocalPlayer player) {
+        if (!settings.isItemAwareHotbarEnabled()) {
             return;
         }
-
-        effectTicks = (effectTicks + 1) & EFFECT_TICK_MASK;
-        if (effectScanCodes.length == 0) {
-            captureEffectScanCodes();
+        Inventory inventory = player.getInventory();
+        int changes = inventory.getTimesChanged();
+        if (changes == lastInventoryChange && hotbarItems[0] != null) {
+            return;
         }
-
-        int[] scanCodes = effectScanCodes;
-        switch (activeEffect) {
-            case DAMAGE_FLASH -> runDamageRipple(scanCodes);
-            case LOW_HEALTH -> runLowHealthBlink();
-            case UNDERWATER -> runUnderwaterWave(scanCodes);
-            case POISON -> runPoisonStarlight(scanCodes);
-            case WITHER -> runWitherEcho(scanCodes);
-            case FROZEN -> runFrozenBreathing();
-            case NETHER_PORTAL -> runNetherColorWave(scanCodes);
-            default -> {
+        lastInventoryChange = changes;
+        for (int slot = 0; slot < hotbarItems.length; slot++) {
+            ItemStack stack = inventory.getItem(slot);
+            Item item = stack.getItem();
+            if (item == hotbarItems[slot]) {
+                continue;
+            }
+            hotbarItems[slot] = item;
+            hotbarItemColors[slot] = itemColors.colorOf(stack, settings);
+            if (slot != lastSelectedSlot) {
+                paintSlot(slot, gauged(slot, hotbarItemColors[slot]));
             }
         }
     }
 
-    private void captureEffectScanCodes() {
-        Int2IntMap colors = handler.getCurrentColors();
-        if (colors == null || colors.isEmpty()) {
-            effectScanCodes = new int[0];
-            return;
-        }
-        IntSet set = colors.keySet();
-        effectScanCodes = set.toIntArray();
-        Arrays.sort(effectScanCodes);
-    }
-
-    private void runDamageRipple(int[] scanCodes) {
-        float decay = clamp01(damageFlashTicks / 12.0f);
-        int base = blendColors(0x1A0000, 0x360000, decay);
-        int accent = blendColors(0xFF2A00, 0xFF5A00, decay);
-        handler.setSolidColor(blendColors(base, accent, 0.35f + 0.25f * decay));
-        if (scanCodes.length == 0) {
+    // Dims each hotbar key by its item's remaining cooldown, and the selected key also by the attack charge. Levels
+    // are quantized to GAUGE_STEPS, so a key is rewritten only when its visible brightness changes.
+    private void updateGauges(LocalPlayer player) {
+        if (!settings.isHotbarGaugesEnabled()) {
             return;
         }
-        int bandCount = 6;
-        int waveIndex = effectTicks % bandCount;
-        for (int i = 0; i < scanCodes.length; i++) {
-            int offset = (i + waveIndex) % bandCount;
-            float strength;
-            if (offset == 0) {
-                strength = 1.0f;
-            } else if (offset == 1 || offset == bandCount - 1) {
-                strength = 0.65f;
-            } else {
-                strength = 0.0f;
+        Inventory inventory = player.getInventory();
+        ItemCooldowns cooldowns = player.getCooldowns();
+        int selected = inventory.getSelectedSlot();
+        for (int slot = 0; slot < gaugeLevels.length; slot++) {
+            float remaining = cooldowns.getCooldownPercent(inventory.getItem(slot), 0.0F);
+            if (slot == selected) {
+                remaining = Math.max(remaining, 1.0F - player.getAttackStrengthScale(0.0F));
             }
-            if (strength > 0.0f) {
-                strength *= decay;
-                int color = blendColors(base, accent, strength);
-                handler.setSolidColorOnScanCode(scanCodes[i], color);
+            // Any cooldown left costs at least one step, so a nearly recharged key still reads as not ready.
+            int level = GAUGE_STEPS - Math.min(GAUGE_STEPS, (int) Math.ceil(remaining * GAUGE_STEPS));
+            if (level == gaugeLevels[slot]) {
+                continue;
             }
+            gaugeLevels[slot] = level;
+            int base = slot == lastSelectedSlot ? settings.getHighlightColor() : slotBaseColor(slot);
+            paintSlot(slot, gauged(slot, base));
         }
     }
 
-    private void runUnderwaterWave(int[] scanCodes) {
-        float swell = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.05f);
-        int base = blendColors(0x00162C, 0x003A66, swell);
-        handler.setSolidColor(base);
-        if (scanCodes.length == 0) {
-            return;
-        }
-        for (int i = 0; i < scanCodes.length; i++) {
-            float offset = effectTicks * 0.12f - i * 0.18f;
-            float wave = 0.5f + 0.5f * (float) Math.sin(offset);
-            int color = blendColors(0x003253, 0x00B2FF, wave);
-            handler.setSolidColorOnScanCode(scanCodes[i], color);
+    // Hotbar keys under a bar widget belong to the bar.
+    private void paintSlot(int slot, int color) {
+        int code = hotbarScanCodes[slot];
+        int logiKey = hotbarLogiKeys[slot];
+        if ((code > 0 || logiKey >= 0) && !bars.owns(code)) {
+            handler.setSolidColorOnResolvedKey(logiKey, code, color);
         }
     }
 
-    private void runPoisonStarlight(int[] scanCodes) {
-        handler.setSolidColor(blendColors(0x001904, 0x003A0B, 0.6f));
-        if (scanCodes.length == 0) {
-            return;
-        }
-        int starCount = Math.max(4, scanCodes.length / 12);
-        for (int i = 0; i < starCount; i++) {
-            int index = effectRandom.nextInt(scanCodes.length);
-            float sparkle = effectRandom.nextFloat();
-            int color = blendColors(0x047A1F, 0x7CFF8A, sparkle);
-            handler.setSolidColorOnScanCode(scanCodes[index], color);
+    private int gauged(int slot, int color) {
+        int level = gaugeLevels[slot];
+        if (!settings.isHotbarGaugesEnabled() || level < 0 || level >= GAUGE_STEPS) {
+            return color;
         }
+        return LedFrame.scale(color, GAUGE_MIN_PERCENT + (100 - GAUGE_MIN_PERCENT) * level / GAUGE_STEPS);
     }
 
-    private void runLowHealthBlink() {
-        int phase = (effectTicks / 3) & 1;
-        int color = phase == 0 ? 0xFF0000 : 0x000000;
-        handler.setSolidColor(color);
+    private int slotBaseColor(int slot) {
+        if (settings.isItemAwareHotbarEnabled() && hotbarItems[slot] != null) {
+            return hotbarItemColors[slot];
+        }
+        return settings.getColor(ConfigManager.CATEGORY_ID_INVENTORY);
     }
 
-    private void runWitherEcho(int[] scanCodes) {
-        float swell = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.045f + 0.6f);
-        int base = blendColors(0x050007, 0x160022, swell);
-        handler.setSolidColor(base);
-        if (scanCodes.length == 0) {
-            return;
-        }
-        int echoCount = Math.max(4, scanCodes.length / 16);
-        for (int i = 0; i < echoCount; i++) {
-            int index = (effectTicks / 4 + i * 19) % scanCodes.length;
-            float age = ((effectTicks + i * 13) % 48) / 48.0f;
-            float pulse = clamp01(1.0f - age);
-            pulse *= pulse;
-            int color = blendColors(0x26003A, 0xB400FF, pulse);
-            handler.setSolidColorOnScanCode(scanCodes[index], color);
-        }
-        if (effectTicks % 12 == 0) {
-            int flickers = Math.min(3, scanCodes.length);
-            int accent = blendColors(0x30004A, 0xE000FF, 0.85f);
-            for (int i = 0; i < flickers; i++) {
-                int index = effectRandom.nextInt(scanCodes.length);
-                handler.setSolidColorOnScanCode(scanCodes[index], accent);
-            }
-        }
+    // The next tick repaints every layer drawn over the base lighting (hotbar tints, gauges, bars and mob warnings),
+    // e.g. after the base lighting was redrawn underneath them.
+    private void invalidateKeyLayers() {
+        Arrays.fill(hotbarItems, null);
+        Arrays.fill(gaugeLevels, -1);
+        bars.invalidate();
+        mobs.invalidate();
     }
 
-    private void runFrozenBreathing() {
-        float wave = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.08f);
-        int color = blendColors(0x152D45, 0xC9F4FF, wave);
-        handler.setSolidColor(color);
+    // As invalidateKeyLayers(), for when the base lighting was redrawn: ripples and pulses in flight are dropped and
+    // the ambient fill is written again over the configured one.
+    private void resetKeyLayers() {
+        invalidateKeyLayers();
+        flashes.cancel();
+        sounds.cancel();
+        ambient.invalidate();
     }
 
-    private void runNetherColorWave(int[] scanCodes) {
-        float hueBase = 0.78f + 0.04f * (float) Math.sin(effectTicks * 0.05f);
-        int base = hsvToRgb(hueBase, 0.85f, 0.35f);
-        handler.setSolidColor(base);
-        if (scanCodes.length == 0) {
-            return;
-        }
-        for (int i = 0; i < scanCodes.length; i++) {
-            float wave = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.17f - i * 0.25f);
-            float hue = 0.74f + 0.1f * wave;
-            float brightness = 0.6f + 0.3f * wave;
-            int color = hsvToRgb(hue, 0.95f, brightness);
-            handler.setSolidColorOnScanCode(scanCodes[i], color);
+    private void onJoin(ClientPacketListener handler, PacketSender sender, Minecraft client) {
+        dead = false;
+        itemColors.invalidate();
+        ambient.clearCache();
+        resetIdle();
+        resetTyping();
+        lastSelectedSlot = -1;
+        resetKeyLayers();
+        hotbarInitialized = false;
+        Arrays.fill(hotbarScanCodes, -1);
+        Arrays.fill(hotbarLogiKeys, -1);
+        resetFunctionKeyLighting();
+        effects.clear(false);
+        if (this.handler.isActive()) {
+            this.handler.initBaseLighting();
         }
     }
 
-    private static boolean isLowHealth(LocalPlayer player) {
-        if (player == null) {
-            return false;
-        }
-        if (player.isCreative() || player.isSpectator()) {
-            return false;
-        }
-        if (player.isDeadOrDying() || player.getHealth() <= 0.0F) {
-            return false;
-        }
-        return player.getHealth() + player.getAbsorptionAmount() <= 4.0F;
-    }
-
-    private static int blendColors(int from, int to, float ratio) {
-        float t = clamp01(ratio);
-        int fr = (from >> 16) & 0xFF;
-        int fg = (from >> 8) & 0xFF;
-        int fb = from & 0xFF;
-        int tr = (to >> 16) & 0xFF;
-        int tg = (to >> 8) & 0xFF;
-        int tb = to & 0xFF;
-
-        int r = Math.round(fr + (tr - fr) * t);
-        int g = Math.round(fg + (tg - fg) * t);
-        int b = Math.round(fb + (tb - fb) * t);
-        return (r << 16) | (g << 8) | b;
-    }
-
-    private static int hsvToRgb(float hue, float saturation, float value) {
-        float h = wrapHue(hue) * 6.0f;
-        int sector = (int) Math.floor(h);
-        float fraction = h - sector;
-        float p = value * (1.0f - saturation);
-        float q = value * (1.0f - saturation * fraction);
-        float t = value * (1.0f - saturation * (1.0f - fraction));
-
-        float rf;
-        float gf;
-        float bf;
-        switch (sector) {
-            case 0 -> {
-                rf = value;
-                gf = t;
-                bf = p;
-            }
-            case 1 -> {
-                rf = q;
-                gf = value;
-                bf = p;
-            }
-            case 2 -> {
-                rf = p;
-                gf = value;
-                bf = t;
-            }
-            case 3 -> {
-                rf = p;
-                gf = q;
-                bf = value;
-            }
-            case 4 -> {
-                rf = t;
-                gf = p;
-                bf = value;
-            }
-            default -> {
-                rf = value;
-                gf = p;
-                bf = q;
+    private void onDisconnect(ClientPacketListener handler, Minecraft client) {
+        for (LightEvent event : LightEvent.values()) {
+            LatencyHistogram latency = this.handler.getLatencyStats().get(event);
+            if (latency.getCount() > 0) {
+                GLights.LOGGER.info("Event to LED latency, {}", latency.summary());
             }
         }
+        if (dead) {
+            dead = false;
+            this.handler.endOverlay();
+        }
+        resetIdle();
+        resetTyping();
+        lastSelectedSlot = -1;
+        resetKeyLayers();
+        hotbarInitialized = false;
+        Arrays.fill(hotbarScanCodes, -1);
+        Arrays.fill(hotbarLogiKeys, -1);
+        resetFunctionKeyLighting();
+    }
 
-        int r = Math.round(clamp01(rf) * 255.0f);
-        int g = Math.round(clamp01(gf) * 255.0f);
-        int b = Math.round(clamp01(bf) * 255.0f);
-        return (r << 16) | (g << 8) | b;
+    private void onHandlerRestart() {
+        itemColors.invalidate();
+        ambient.clearCache();
+        resetIdle();
+        resetTyping();
+        hotbarInitialized = false;
+        lastSelectedSlot = -1;
+        resetKeyLayers();
+        Arrays.fill(hotbarScanCodes, -1);
+        Arrays.fill(hotbarLogiKeys, -1);
+        resetFunctionKeyLighting();
+        effects.reapply();
     }
 
-    private static float clamp01(float value) {
-        if (value <= 0.0f) {
-            return 0.0f;
-        }
-        if (value >= 1.0f) {
-            return 1.0f;
-        }
-        return value;
+    private void restoreBaseLighting() {
+        handler.initBaseLighting();
+        resetKeyLayers();
+        resetHotbarHighlight();
     }
 
-    private static float wrapHue(float hue) {
-        float wrapped = hue % 1.0f;
-        return wrapped < 0.0f ? wrapped + 1.0f : wrapped;
+    private static boolean isPlayerDead(LocalPlayer player) {
+        return player.isDeadOrDying() || player.getHealth() <= 0.0F || player.isRemoved();
     }
 
-    private void clearSpecialEffects(boolean restoreBase) {
-        damageFlashTicks = 0;
-        if (activeEffect != SpecialEffect.NONE) {
-            applySpecialEffect(SpecialEffect.NONE, restoreBase);
-        } else if (restoreBase) {
-            handler.stopEffects();
-            handler.initBaseLighting();
-            resetHotbarHighlight();
-        }
-        activeEffect = SpecialEffect.NONE;
-        effectTicks = 0;
-        effectScanCodes = new int[0];
+    private PlayerState capturePlayerState(LocalPlayer player) {
+        playerState.setHurtTime(player.hurtTime);
+        playerState.setHealth(player.getHealth());
+        playerState.setAbsorption(player.getAbsorptionAmount());
+        playerState.setDying(player.isDeadOrDying());
+        playerState.setCreativeOrSpectator(player.isCreative() || player.isSpectator());
+        playerState.setPoisoned(settings.isPoisonEffectEnabled() && player.hasEffect(MobEffects.POISON));
+        playerState.setWithered(settings.isWitherEffectEnabled() && player.hasEffect(MobEffects.WITHER));
+        playerState.setTicksFrozen(player.getTicksFrozen());
+        playerState.setUnderwater(player.isUnderWater());
+        playerState.setInNetherPortal(settings.isNetherPortalEffectEnabled() && isWaitingForNether(player));
+        return playerState;
     }
 
     private void updateFunctionKeyLighting() {
@@ -565,7 +558,7 @@ public final class EventHandler {
                 f3HoldTicks++;
             }
             if (f3HoldTicks >= F3_HOLD_THRESHOLD_TICKS) {
-                int color = config.getColorForCategory(ConfigManager.CATEGORY_INVENTORY);
+                int color = settings.getColor(ConfigManager.CATEGORY_ID_INVENTORY);
                 handler.setSolidColorOnResolvedKey(F4_LOGI_KEY, -1, color);
                 f4Lit = true;
             }
@@ -580,28 +573,28 @@ public final class EventHandler {
     }
 
     private void resetHotbarHighlight() {
-        if (!config.isHighlightSelectedSlot()) {
+        if (!settings.isHighlightSelectedSlot()) {
             return;
         }
         if (lastSelectedSlot < 0 || lastSelectedSlot >= hotbarScanCodes.length) {
             return;
         }
-        int code = hotbarScanCodes[lastSelectedSlot];
-        int logiKey = hotbarLogiKeys[lastSelectedSlot];
-        if (code > 0 || logiKey >= 0) {
-            handler.setSolidColorOnResolvedKey(logiKey, code, config.getHighlightColor());
-        }
+        paintSlot(lastSelectedSlot, gauged(lastSelectedSlot, settings.getHighlightColor()));
     }
 
     public void onConfigChanged() {
+        settings = config.current();
+        resetIdle();
+        resetTyping();
         hotbarInitialized = false;
         lastSelectedSlot = -1;
+        resetKeyLayers();
         Arrays.fill(hotbarScanCodes, -1);
         Arrays.fill(hotbarLogiKeys, -1);
         resetFunctionKeyLighting();
 
-        if (!config.isModEnabled()) {
-            clearSpecialEffects(false);
+        if (!settings.isModEnabled()) {
+            effects.clear(false);
             if (handler.isActive()) {
                 handler.stopEffects();
                 handler.shutdown(true);
@@ -613,7 +606,7 @@ public final class EventHandler {
             handler.restart(true);
         }
 
-        clearSpecialEffects(true);
+        effects.clear(true);
     }
 
     private boolean isWaitingForNether(LocalPlayer player) {
@@ -0,0 +1,159 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.KeyboardLayout;
+import com.g2806.glights.client.led.LedFrame;
+import net.minecraft.client.player.LocalPlayer;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Explosions and lightning strikes near the player, drawn as a ripple that spreads across the board from the side
+// the event came from and fades out. Everything offered between two ticks is merged into one composite flash, and a
+// flash arriving while a ripple still runs restarts that ripple rather than stacking another, so a TNT farm costs
+// the same handful of key writes per tick as a single blast.
+final class FlashRipple {
+    static final int EXPLOSION = 0;
+    static final int LIGHTNING = 1;
+    // Blocks at which each kind of event fades to nothing; lightning is seen from much further away.
+    private static final double[] RANGE = {64.0, 160.0};
+    private static final int[] COLOR_IDS = {ConfigManager.CATEGORY_ID_EXPLOSION_FLASH, ConfigManager.CATEGORY_ID_LIGHTNING_FLASH};
+    private static final int DURATION_TICKS = 12;
+    // In quarter-key units: how far the front moves per tick and how far behind it keys are still lit.
+    private static final double SPEED = 10.0;
+    private static final double BAND = 12.0;
+    private static final int LEVELS = 4;
+
+    private final LightHandler handler;
+    private final int[] codes;
+    private final double[] keyX;
+    private final double[] keyY;
+    private final double width;
+    private final double middleY;
+    private final double[] distances;
+    // What each key showed before the ripple first touched it, and the step the ripple last drew it at.
+    private final int[] saved;
+    private final int[] drawnLevels;
+
+    private float pendingStrength;
+    private double pendingSide;
+    private int pendingKind;
+
+    private boolean running;
+    private int age;
+    private float strength;
+    private int color;
+
+    FlashRipple(LightHandler handler) {
+        this.handler = handler;
+        KeyboardLayout layout = KeyboardLayout.tenkeyless();
+        List<KeyboardLayout.Key> keys = layout.getKeys();
+        int count = keys.size();
+        codes = new int[count];
+        keyX = new double[count];
+        keyY = new double[count];
+        for (int i = 0; i < count; i++) {
+            codes[i] = keys.get(i).getScanCode();
+            keyX[i] = keys.get(i).getCenterX();
+            keyY[i] = keys.get(i).getCenterY();
+        }
+        width = layout.getWidth();
+        middleY = layout.getHeight() / 2.0;
+        distances = new double[count];
+        saved = new int[count];
+        drawnLevels = new int[count];
+    }
+
+    // Folds one event into the flash for the next tick. Strengths combine like light, so ten equal blasts are
+    // brighter than one but never past full; the strongest event picks the side and the color.
+    void offer(LocalPlayer player, int kind, double x, double y, double z) {
+        double dx = x - player.getX();
+        double dy = y - player.getY();
+        double dz = z - player.getZ();
+        float event = (float) (1.0 - Math.sqrt(dx * dx + dy * dy + dz * dz) / RANGE[kind]);
+        if (event <= 0.0F) {
+            return;
+        }
+        if (event > pendingStrength) {
+            pendingSide = sideOf(player, dx, dz);
+            pendingKind = kind;
+        }
+        pendingStrength = 1.0F - (1.0F - pendingStrength) * (1.0F - event);
+    }
+
+    // Where an offset from the player lies across their view: -1 straight left, 1 straight right, 0 ahead, behind or
+    // overhead.
+    static double sideOf(LocalPlayer player, double dx, double dz) {
+        double yaw = Math.toRadians(player.getYRot());
+        double right = -dx * Math.cos(yaw) - dz * Math.sin(yaw);
+        double horizontal = Math.sqrt(dx * dx + dz * dz);
+        return horizontal > 1.0E-3 ? right / horizontal : 0.0;
+    }
+
+    // Advances the ripple by one tick. Returns true on the tick it finishes, after putting back what it covered.
+    boolean update(ConfigSnapshot settings) {
+        if (pendingStrength > 0.0F) {
+            if (settings.isFlashEventsEnabled()) {
+                start(settings);
+            }
+            pendingStrength = 0.0F;
+        }
+        if (!running) {
+            return false;
+        }
+        float fade = strength * (1.0F - age / (float) DURATION_TICKS);
+        double front = age * SPEED;
+        handler.setDrawPriority(LedFrame.PRIORITY_AMBIENT);
+        for (int i = 0; i < codes.length; i++) {
+            double behind = front - distances[i];
+            int level = behind >= 0.0 && behind < BAND ? (int) Math.ceil(fade * (1.0 - behind / BAND) * LEVELS) : 0;
+            if (level != drawnLevels[i]) {
+                drawnLevels[i] = level;
+                draw(i, level);
+            }
+        }
+        handler.setDrawPriority(LedFrame.PRIORITY_NORMAL);
+        if (++age <= DURATION_TICKS) {
+            return false;
+        }
+        running = false;
+        return true;
+    }
+
+    // Drops the ripple and anything pending without touching the keys; for when the base lighting is redrawn.
+    void cancel() {
+        running = false;
+        pendingStrength = 0.0F;
+    }
+
+    private void start(ConfigSnapshot settings) {
+        if (!running) {
+            LedFrame frame = handler.getFrame();
+            for (int i = 0; i < codes.length; i++) {
+                saved[i] = frame.getScanCode(codes[i]);
+            }
+            Arrays.fill(drawnLevels, 0);
+            strength = 0.0F;
+        } else {
+            strength *= 1.0F - age / (float) DURATION_TICKS;
+        }
+        running = true;
+        age = 0;
+        strength = Math.max(strength, pendingStrength);
+        color = settings.getColor(COLOR_IDS[pendingKind]);
+        double originX = (pendingSide + 1.0) / 2.0 * width;
+        for (int i = 0; i < codes.length; i++) {
+            distances[i] = Math.hypot(keyX[i] - originX, keyY[i] - middleY);
+        }
+    }
+
+    private void draw(int index, int level) {
+        int code = codes[index];
+        if (level > 0) {
+            handler.setSolidColorOnScanCode(code, LedFrame.scale(color, 100 * level / LEVELS));
+        } else {
+            handler.restoreKey(code, saved[index]);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.resources.sounds.SoundInstance;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.PackType;
 import net.minecraft.server.packs.resources.ResourceManager;
@@ -19,6 +20,7 @@ public final class GLightsClient implements ClientModInitializer {
     public static ConfigManager CONFIG;
     public static LightHandler HANDLER;
     public static EventHandler EVENTS;
+    private static LedReconnector RECONNECTOR;
 
     @Override
     @SuppressWarnings("deprecation")
@@ -29,24 +31,8 @@ public final class GLightsClient implements ClientModInitializer {
         CONFIG = new ConfigManager(configPath);
         CONFIG.load();
 
-        Optional<LightHandler> handler = LightHandler.create(client, CONFIG);
-        if (handler.isEmpty()) {
-            CONFIG.saveIfDirty();
-            GLights.LOGGER.warn("Logitech LED SDK unavailable; disabling GLights integration.");
-            return;
-        }
-
-        HANDLER = handler.get();
-
-        EVENTS = new EventHandler(client, HANDLER, CONFIG);
-        EVENTS.register();
-
-        if (!CONFIG.isModEnabled() && HANDLER.isActive()) {
-            HANDLER.shutdown(true);
-        }
-
         ClientLifecycleEvents.CLIENT_STARTED.register(mc -> {
-            if (HANDLER != null && CONFIG.isModEnabled() && HANDLER.isActive()) {
+            if (HANDLER != null && CONFIG.current().isModEnabled() && HANDLER.isActive()) {
                 HANDLER.initBaseLighting();
             }
         });
@@ -54,7 +40,9 @@ public final class GLightsClient implements ClientModInitializer {
         SimpleSynchronousResourceReloadListener listener = new SimpleSynchronousResourceReloadListener() {
             @Override
             public void onResourceManagerReload(ResourceManager manager) {
-                HANDLER.onResourceReload();
+                if (HANDLER != null) {
+                    HANDLER.onResourceReload();
+                }
             }
 
             @Override
@@ -64,8 +52,70 @@ public final class GLightsClient implements ClientModInitializer {
         };
 
         ResourceManagerHelper.get(PackType.CLIENT_RESOURCES).registerReloadListener(listener);
+        GLightsCommands.register();
+
+        Optional<LightHandler> handler = LightHandler.create(client, CONFIG);
+        if (handler.isEmpty()) {
+            CONFIG.saveIfDirty();
+            GLights.LOGGER.warn("Logitech LED SDK unavailable; retrying in the background.");
+            RECONNECTOR = new LedReconnector(client, CONFIG, connected -> {
+                attach(client, connected);
+                if (CONFIG.current().isModEnabled() && HANDLER.isActive()) {
+                    HANDLER.initBaseLighting();
+                }
+            });
+            RECONNECTOR.start();
+            return;
+        }
+
+        attach(client, handler.get());
 
         CONFIG.saveIfDirty();
         GLights.LOGGER.info("GLights client services initialized");
     }
+
+    // Restarts background reconnection when the mod is re-enabled before the SDK ever came up.
+    public static void retryLedConnection() {
+        if (HANDLER == null && RECONNECTOR != null) {
+            RECONNECTOR.start();
+        }
+    }
+
+    // Entry point for InventoryMixin; runs on the client thread for the local player's inventory only.
+    public static void onSelectedSlotChanged(int slot) {
+        if (EVENTS != null) {
+            EVENTS.onSelectedSlotInput(slot, System.nanoTime());
+        }
+    }
+
+    // Entry points for ClientPacketListenerMixin; run on the client thread.
+    public static void onExplosion(double x, double y, double z) {
+        if (EVENTS != null) {
+            EVENTS.onFlash(FlashRipple.EXPLOSION, x, y, z);
+        }
+    }
+
+    public static void onLightning(double x, double y, double z) {
+        if (EVENTS != null) {
+            EVENTS.onFlash(FlashRipple.LIGHTNING, x, y, z);
+        }
+    }
+
+    // Entry point for SoundEngineMixin; runs on the client thread.
+    public static void onSound(SoundInstance sound) {
+        if (EVENTS != null) {
+            EVENTS.onSound(sound);
+        }
+    }
+
+    private static void attach(Minecraft client, LightHandler handler) {
+        HANDLER = handler;
+
+        EVENTS = new EventHandler(client, HANDLER, CONFIG);
+        EVENTS.register();
+
+        if (!CONFIG.current().isModEnabled() && HANDLER.isActive()) {
+            HANDLER.shutdown(true);
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.GLights;
+import com.g2806.glights.client.led.LatencyStats;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.minecraft.network.chat.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Client-side /glights commands: the latency stats view, a file dump of it and a reset.
+final class GLightsCommands {
+    private static final DateTimeFormatter DUMP_NAME = DateTimeFormatter.ofPattern("'latency-'yyyyMMdd-HHmmss'.csv'");
+
+    private GLightsCommands() {
+    }
+
+    static void register() {
+        ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> register(dispatcher));
+    }
+
+    private static void register(CommandDispatcher<FabricClientCommandSource> dispatcher) {
+        dispatcher.register(ClientCommandManager.literal(GLights.MOD_ID)
+                .then(ClientCommandManager.literal("stats")
+                        .executes(GLightsCommands::showStats)
+                        .then(ClientCommandManager.literal("dump").executes(GLightsCommands::dumpStats))
+                        .then(ClientCommandManager.literal("reset").executes(GLightsCommands::resetStats))));
+    }
+
+    private static int showStats(CommandContext<FabricClientCommandSource> context) {
+        LatencyStats stats = stats(context);
+        if (stats == null) {
+            return 0;
+        }
+        context.getSource().sendFeedback(Component.translatable("commands.glights.stats.header"));
+        for (String line : stats.summaries()) {
+            context.getSource().sendFeedback(Component.literal(line));
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int dumpStats(CommandContext<FabricClientCommandSource> context) {
+        LatencyStats stats = stats(context);
+        if (stats == null) {
+            return 0;
+        }
+        Path file = context.getSource().getClient().gameDirectory.toPath()
+                .resolve(GLights.MOD_ID + "-stats").resolve(DUMP_NAME.format(LocalDateTime.now()));
+        try {
+            stats.dump(file);
+        } catch (IOException exception) {
+            GLights.LOGGER.warn("Unable to write latency stats to {}", file, exception);
+            context.getSource().sendError(Component.translatable("commands.glights.stats.dump_failed", file.toString()));
+            return 0;
+        }
+        context.getSource().sendFeedback(Component.translatable("commands.glights.stats.dumped", file.toString()));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int resetStats(CommandContext<FabricClientCommandSource> context) {
+        LatencyStats stats = stats(context);
+        if (stats == null) {
+            return 0;
+        }
+        stats.reset();
+        context.getSource().sendFeedback(Component.translatable("commands.glights.stats.reset"));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static LatencyStats stats(CommandContext<FabricClientCommandSource> context) {
+        if (GLightsClient.HANDLER == null) {
+            context.getSource().sendError(Component.translatable("commands.glights.unavailable"));
+            return null;
+        }
+        return GLightsClient.HANDLER.getLatencyStats();
+    }
+}
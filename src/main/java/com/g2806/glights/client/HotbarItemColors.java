@@ -0,0 +1,114 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.GLights;
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hotbar key color per Item, resolved once through the rule table, tags and item components and then served from an
+// identity-keyed cache. The cache is dropped whenever a new config is published or tags reload.
+final class HotbarItemColors {
+    private static final int UNRESOLVED = -1;
+
+    private final Reference2IntOpenHashMap<Item> cache = new Reference2IntOpenHashMap<>();
+    private final List<ResourceLocation> ruleItems = new ArrayList<>();
+    private final List<TagKey<Item>> ruleTags = new ArrayList<>();
+    private final List<Integer> ruleColors = new ArrayList<>();
+    private int configVersion = -1;
+
+    HotbarItemColors() {
+        cache.defaultReturnValue(UNRESOLVED);
+    }
+
+    int colorOf(ItemStack stack, ConfigSnapshot settings) {
+        if (settings.getVersion() != configVersion) {
+            reload(settings);
+        }
+        if (stack.isEmpty()) {
+            return settings.getColor(ConfigManager.CATEGORY_ID_HOTBAR_EMPTY);
+        }
+        Item item = stack.getItem();
+        int color = cache.getInt(item);
+        if (color == UNRESOLVED) {
+            color = resolve(item, settings);
+            cache.put(item, color);
+        }
+        return color;
+    }
+
+    // Tags are rebound on resource reload and when joining a server, so anything derived from them must go.
+    void invalidate() {
+        cache.clear();
+    }
+
+    private int resolve(Item item, ConfigSnapshot settings) {
+        ResourceLocation id = BuiltInRegistries.ITEM.getKey(item);
+        for (int i = 0; i < ruleColors.size(); i++) {
+            ResourceLocation ruleItem = ruleItems.get(i);
+            TagKey<Item> ruleTag = ruleTags.get(i);
+            if (ruleItem != null ? ruleItem.equals(id) : item.builtInRegistryHolder().is(ruleTag)) {
+                return ruleColors.get(i);
+            }
+        }
+        if (item.builtInRegistryHolder().is(ItemTags.SWORDS) || item == Items.BOW || item == Items.CROSSBOW
+                || item == Items.TRIDENT || item == Items.MACE) {
+            return settings.getColor(ConfigManager.CATEGORY_ID_HOTBAR_WEAPON);
+        }
+        if (item.builtInRegistryHolder().is(ItemTags.PICKAXES) || item.builtInRegistryHolder().is(ItemTags.AXES)
+                || item.builtInRegistryHolder().is(ItemTags.SHOVELS) || item.builtInRegistryHolder().is(ItemTags.HOES)
+                || item == Items.SHEARS || item == Items.FISHING_ROD || item == Items.FLINT_AND_STEEL || item == Items.BRUSH) {
+            return settings.getColor(ConfigManager.CATEGORY_ID_HOTBAR_TOOL);
+        }
+        if (item.components().has(DataComponents.FOOD)) {
+            return settings.getColor(ConfigManager.CATEGORY_ID_HOTBAR_FOOD);
+        }
+        if (item instanceof BlockItem) {
+            return settings.getColor(ConfigManager.CATEGORY_ID_HOTBAR_BLOCK);
+        }
+        return settings.getColor(ConfigManager.CATEGORY_ID_INVENTORY);
+    }
+
+    private void reload(ConfigSnapshot settings) {
+        configVersion = settings.getVersion();
+        cache.clear();
+        ruleItems.clear();
+        ruleTags.clear();
+        ruleColors.clear();
+        for (String rule : settings.getHotbarItemRules()) {
+            int separator = rule.lastIndexOf('=');
+            ResourceLocation target = separator > 0 ? ResourceLocation.tryParse(rule.substring(rule.startsWith("#") ? 1 : 0, separator).trim()) : null;
+            int color;
+            try {
+                color = target == null ? -1 : parseColor(rule.substring(separator + 1).trim());
+            } catch (NumberFormatException exception) {
+                color = -1;
+            }
+            if (color < 0) {
+                GLights.LOGGER.warn("Ignoring hotbar item rule '{}', expected namespace:item=#RRGGBB or #namespace:tag=#RRGGBB", rule);
+                continue;
+            }
+            boolean tag = rule.startsWith("#");
+            ruleItems.add(tag ? null : target);
+            ruleTags.add(tag ? TagKey.create(Registries.ITEM, target) : null);
+            ruleColors.add(color);
+        }
+    }
+
+    private static int parseColor(String raw) {
+        String digits = raw.startsWith("#") ? "0x" + raw.substring(1) : raw;
+        return Integer.decode(digits) & 0xFFFFFF;
+    }
+}
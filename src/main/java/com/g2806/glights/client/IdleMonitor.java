@@ -0,0 +1,69 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigSnapshot;
+import net.minecraft.client.KeyMapping;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import org.lwjgl.glfw.GLFW;
+
+import java.util.concurrent.TimeUnit;
+
+// Decides once per tick whether anyone is watching the keyboard: paused, in a pause-type menu, minimized while
+// still focused, or without mouse, look or key input for the configured timeout.
+final class IdleMonitor {
+    private final Minecraft client;
+    private long lastInputNanos;
+    private double lastMouseX = Double.NaN;
+    private double lastMouseY;
+    private float lastYRot;
+    private float lastXRot;
+
+    IdleMonitor(Minecraft client) {
+        this.client = client;
+        this.lastInputNanos = System.nanoTime();
+    }
+
+    boolean isIdle(LocalPlayer player, ConfigSnapshot settings, long now) {
+        if (sawInput(player)) {
+            lastInputNanos = now;
+        }
+        if (client.isPaused() || (client.screen != null && client.screen.isPauseScreen())) {
+            return true;
+        }
+        if (GLFW.glfwGetWindowAttrib(client.getWindow().handle(), GLFW.GLFW_ICONIFIED) == GLFW.GLFW_TRUE) {
+            return true;
+        }
+        int timeout = settings.getIdleTimeoutSeconds();
+        return timeout > 0 && now - lastInputNanos > TimeUnit.SECONDS.toNanos(timeout);
+    }
+
+    void reset(long now) {
+        lastInputNanos = now;
+        lastMouseX = Double.NaN;
+    }
+
+    private boolean sawInput(LocalPlayer player) {
+        boolean input = false;
+        double mouseX = client.mouseHandler.xpos();
+        double mouseY = client.mouseHandler.ypos();
+        if (mouseX != lastMouseX || mouseY != lastMouseY) {
+            input = !Double.isNaN(lastMouseX);
+            lastMouseX = mouseX;
+            lastMouseY = mouseY;
+        }
+        // A grabbed cursor is recentred, so looking around shows up as rotation rather than mouse position.
+        if (player.getYRot() != lastYRot || player.getXRot() != lastXRot) {
+            input = true;
+            lastYRot = player.getYRot();
+            lastXRot = player.getXRot();
+        }
+        if (!input) {
+            for (KeyMapping binding : client.options.keyMappings) {
+                if (binding != null && binding.isDown()) {
+                    return true;
+                }
+            }
+        }
+        return input;
+    }
+}
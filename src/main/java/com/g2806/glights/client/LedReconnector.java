@@ -0,0 +1,69 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.GLights;
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.led.Backoff;
+import net.minecraft.client.Minecraft;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Keeps trying to bring the LED SDK up when it was unavailable at launch (typically G Hub starting after the
+ * game). Attempts run on a low-priority daemon thread with jittered exponential backoff; the first handler
+ * that starts is handed to the client thread, and the loop gives up while the mod is disabled.
+ */
+final class LedReconnector {
+    private static final long MIN_DELAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final double JITTER = 0.2;
+
+    private final Minecraft client;
+    private final ConfigManager config;
+    private final Consumer<LightHandler> onConnected;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    LedReconnector(Minecraft client, ConfigManager config, Consumer<LightHandler> onConnected) {
+        this.client = client;
+        this.config = config;
+        this.onConnected = onConnected;
+    }
+
+    void start() {
+        if (!config.current().isModEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        // A platform thread rather than a virtual one: LogiLedInit can block in native code and would pin a carrier.
+        Thread thread = new Thread(this::run, "GLights LED reconnect");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void run() {
+        Backoff backoff = new Backoff(MIN_DELAY_NANOS, MAX_DELAY_NANOS, JITTER);
+        int attempts = 0;
+        try {
+            while (config.current().isModEnabled()) {
+                TimeUnit.NANOSECONDS.sleep(backoff.next());
+                if (!config.current().isModEnabled()) {
+                    break;
+                }
+                attempts++;
+                Optional<LightHandler> handler = LightHandler.create(client, config, true);
+                if (handler.isPresent()) {
+                    // Stays marked as running: the handler now belongs to the client and no second loop may start.
+                    GLights.LOGGER.info("Logitech LED SDK became available after {} background attempt(s)", attempts);
+                    client.execute(() -> onConnected.accept(handler.get()));
+                    return;
+                }
+            }
+            GLights.LOGGER.info("GLights disabled; stopped waiting for the Logitech LED SDK");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        running.set(false);
+    }
+}
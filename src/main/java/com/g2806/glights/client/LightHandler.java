@@ -2,36 +2,83 @@ package com.g2806.glights.client;
 
 import com.g2806.glights.GLights;
 import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.effect.EffectCanvas;
+import com.g2806.glights.client.led.Backoff;
+import com.g2806.glights.client.led.DaemonLedOutput;
+import com.g2806.glights.client.led.DirectLedOutput;
+import com.g2806.glights.client.led.FrameRecorder;
+import com.g2806.glights.client.led.LatencyStats;
+import com.g2806.glights.client.led.LedArbiter;
+import com.g2806.glights.client.led.LedDaemon;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.LedOutput;
+import com.g2806.glights.client.led.LightEvent;
+import com.g2806.glights.client.led.LogiLedBackend;
+import com.g2806.glights.client.led.PhysicalKeyPlan;
 import com.logitech.gaming.LogiLED;
 import com.mojang.blaze3d.platform.InputConstants;
-import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.client.Minecraft;
 import org.lwjgl.glfw.GLFW;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
-public final class LightHandler {
+public final class LightHandler implements EffectCanvas {
     private static Field CATEGORY_NAME_FIELD;
     private static Method ACTIVE_KEY_METHOD;
     private static boolean ACTIVE_KEY_METHOD_RESOLVED;
     private static Field ACTIVE_KEY_FIELD;
     private static boolean ACTIVE_KEY_FIELD_RESOLVED;
+    private static final String RECORDINGS_DIRECTORY = GLights.MOD_ID + "-recordings";
+    private static final long PREVIEW_ABANDON_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    // A restart that failed is not tried again until the backoff passes, however often focus comes back.
+    private static final long MIN_RESTART_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_RESTART_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long CREATE_READY_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final DateTimeFormatter RECORDING_NAME = DateTimeFormatter.ofPattern("'frames-'yyyyMMdd-HHmmss'.glfr'");
 
     private final Minecraft client;
     private final ConfigManager config;
     private final Int2IntOpenHashMap keyLastColor = new Int2IntOpenHashMap();
+    private final LedFrame frame = new LedFrame();
+    private final LedFrame baseFrame = new LedFrame();
+    // Scan code colors the per-key overrides were drawn over, UNSET where the key was unlit.
+    private final Int2IntOpenHashMap underOverrides = new Int2IntOpenHashMap();
+    private final LedFrame suspendedFrame = new LedFrame();
+    private final PhysicalKeyPlan keyPlan = new PhysicalKeyPlan();
     private final List<Runnable> restartCallbacks = new CopyOnWriteArrayList<>();
-    private int currentTargetDevice = LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-    private boolean lastMouseLightingEnabled;
+    private final LedArbiter arbiter;
+    private final LatencyStats latencyStats = new LatencyStats();
+    private final Backoff restartBackoff = new Backoff(MIN_RESTART_DELAY_NANOS, MAX_RESTART_DELAY_NANOS);
+    private long restartAtNanos;
+    private boolean restartFailed;
+    private LedOutput output;
+    private boolean outputOutOfProcess;
+    private int submittedVersion;
+    private int appliedCallBudget = -1;
+    private boolean ownsLeds;
+    private boolean baseFrameValid;
+    private boolean overlayActive;
+    private boolean suspended;
+    private boolean previewing;
+    private long previewTouchedNanos;
+    private FrameRecorder recorder;
+    private boolean recorderFailed;
 
     private static final int[] FUNCTION_KEY_KEYSYMS = new int[] {
             GLFW.GLFW_KEY_F1,
@@ -54,15 +101,28 @@ public final class LightHandler {
         this.client = client;
         this.config = config;
         this.keyLastColor.defaultReturnValue(0);
-        this.lastMouseLightingEnabled = config.isMouseLightingEnabled();
+        this.arbiter = LedArbiter.open(Path.of(System.getProperty("java.io.tmpdir"), GLights.MOD_ID + "-owner.bin"));
     }
 
     public static Optional<LightHandler> create(Minecraft client, ConfigManager config) {
+        return create(client, config, false);
+    }
+
+    // Only touches the SDK and the LED output, so it is safe to call off the client thread. Unlike restart(), it
+    // waits for the SDK to come up, so the client thread calls it only once at launch.
+    public static Optional<LightHandler> create(Minecraft client, ConfigManager config, boolean silent) {
         Objects.requireNonNull(client, "client");
         Objects.requireNonNull(config, "config");
 
         LightHandler handler = new LightHandler(client, config);
-        if (!handler.startLedSdk(false)) {
+        if (!handler.startLedSdk(silent)) {
+            return Optional.empty();
+        }
+        if (!handler.output.awaitReady(CREATE_READY_TIMEOUT_NANOS)) {
+            if (!silent) {
+                GLights.LOGGER.error("Failed to initialise the Logitech LED SDK (LogiLedInit returned false or did not return)");
+            }
+            handler.shutdown(true);
             return Optional.empty();
         }
 
@@ -70,10 +130,25 @@ public final class LightHandler {
     }
 
     private boolean startLedSdk(boolean silent) {
+        boolean outOfProcess = config.current().isOutOfProcessEnabled();
+        if (output == null || outputOutOfProcess != outOfProcess) {
+            if (output != null) {
+                output.close();
+            }
+            output = createOutput(outOfProcess);
+            output.setLatencyStats(latencyStats);
+            appliedCallBudget = -1;
+            outputOutOfProcess = outOfProcess;
+        }
+
         try {
-            if (!LogiLED.LogiLedInit()) {
+            if (!output.open()) {
                 if (!silent) {
-                    GLights.LOGGER.error("Failed to initialise the Logitech LED SDK (LogiLedInit returned false)");
+                    if (outOfProcess) {
+                        GLights.LOGGER.error("Failed to start the GLights LED helper process");
+                    } else {
+                        GLights.LOGGER.error("Failed to start the Logitech LED output thread");
+                    }
                 }
                 return false;
             }
@@ -84,30 +159,129 @@ public final class LightHandler {
             return false;
         }
 
-        LogiLED.LogiLedSetTargetDevice(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB);
-        currentTargetDevice = LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        lastMouseLightingEnabled = config.isMouseLightingEnabled();
         active = true;
         setSolidColor(0x000000);
+        submittedVersion = frame.getVersion() - 1;
+        commitFrame();
         return true;
     }
 
+    private static LedOutput createOutput(boolean outOfProcess) {
+        if (!outOfProcess) {
+            return new DirectLedOutput(new LogiLedBackend());
+        }
+        Path socket = Path.of(System.getProperty("java.io.tmpdir"), GLights.MOD_ID + "-" + ProcessHandle.current().pid() + ".sock");
+        return new DaemonLedOutput(socket, DaemonLedOutput.helperCommand(LedDaemon.BACKEND_LOGITECH, LogiLED.class));
+    }
+
+    // Pushes the frame drawn since the last commit; unchanged frames never reach the output, and neither
+    // does anything while another instance owns the LEDs.
+    public void commitFrame() {
+        if (!active) {
+            return;
+        }
+        if (output.hasFailed()) {
+            onOutputFailed();
+            return;
+        }
+        if (restartFailed && output.isReady()) {
+            restartFailed = false;
+            restartBackoff.reset();
+        }
+        if (!arbiter.claimIfVacant()) {
+            ownsLeds = false;
+            frame.clearEvents();
+            return;
+        }
+        if (!ownsLeds) {
+            ownsLeds = true;
+            output.invalidate();
+            submittedVersion = frame.getVersion() - 1;
+        }
+        if (frame.getVersion() == submittedVersion) {
+            // Nothing visible changed, so there is no latency to attribute to events stamped this frame.
+            frame.clearEvents();
+            return;
+        }
+        submittedVersion = frame.getVersion();
+        int callBudget = config.current().getNativeCallBudget();
+        if (callBudget != appliedCallBudget) {
+            output.setNativeCallBudget(callBudget);
+            appliedCallBudget = callBudget;
+        }
+        output.submit(frame);
+        frame.clearEvents();
+        updateRecorder();
+        if (recorder != null) {
+            recorder.record(frame, System.nanoTime());
+        }
+    }
+
+    // Marks the frame being drawn as the answer to a game event, so its latency to the device is recorded.
+    public void stampEvent(LightEvent event, long nanos) {
+        if (active) {
+            frame.stampEvent(event, nanos);
+        }
+    }
+
+    public LatencyStats getLatencyStats() {
+        return latencyStats;
+    }
+
+    private void updateRecorder() {
+        if (!config.current().isFrameRecordingEnabled()) {
+            stopRecording();
+            recorderFailed = false;
+            return;
+        }
+        if (recorder != null || recorderFailed) {
+            return;
+        }
+        Path file = client.gameDirectory.toPath().resolve(RECORDINGS_DIRECTORY).resolve(RECORDING_NAME.format(LocalDateTime.now()));
+        try {
+            recorder = FrameRecorder.open(file);
+            GLights.LOGGER.info("Recording LED frames to {}", file);
+        } catch (IOException exception) {
+            recorderFailed = true;
+            GLights.LOGGER.warn("Unable to record LED frames to {}", file, exception);
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        recorder.close();
+        GLights.LOGGER.info("Recorded {} LED frames to {} ({} dropped)", recorder.getFrames(), recorder.getFile(), recorder.getDroppedFrames());
+        recorder = null;
+    }
+
+    @Override
     public boolean isActive() {
         return active;
     }
 
+    // Called while this window has focus so the most recently focused instance drives the LEDs.
+    public void claimLeds() {
+        if (active && !arbiter.isOwner()) {
+            arbiter.claim();
+        }
+    }
+
     public void initBaseLighting() {
         if (!active) {
             return;
         }
 
         KeyMapping[] allKeys = client.options.keyMappings;
+        String[] bindingCategories = new String[allKeys.length];
         Collection<String> categories = new ArrayList<>(allKeys.length + 4);
-        for (KeyMapping binding : allKeys) {
-            if (binding == null) {
+        for (int i = 0; i < allKeys.length; i++) {
+            if (allKeys[i] == null) {
                 continue;
             }
-            categories.add(resolveCategory(binding));
+            bindingCategories[i] = resolveCategory(allKeys[i]);
+            categories.add(bindingCategories[i]);
         }
         categories.add(ConfigManager.CATEGORY_UNKNOWN);
         categories.add(ConfigManager.CATEGORY_DEAD);
@@ -117,74 +291,53 @@ public final class LightHandler {
         categories.add(ConfigManager.CATEGORY_BACKGROUND);
         config.ensureDefaults(categories);
         config.saveIfDirty();
+        ConfigSnapshot settings = config.current();
+
+        keyPlan.reset();
+        for (int i = 0; i < allKeys.length; i++) {
+            KeyMapping binding = allKeys[i];
+            if (binding == null) {
+                continue;
+            }
+            String category = bindingCategories[i];
+            keyPlan.offer(resolveLogiKey(binding), resolveScanCode(binding), PhysicalKeyPlan.categoryPriority(category),
+                    category, binding.getName(), settings.getColorForCategory(category));
+        }
+        planWasdOverride();
 
         applyBackgroundFill();
         keyLastColor.clear();
-        for (KeyMapping binding : allKeys) {
-            applyBaseColor(binding);
-        }
-        applyWasdOverride();
+        keyPlan.writeTo(this::setSolidColorOnResolvedKey);
         ensureFunctionKeyFallbacks();
+        applyKeyOverrides(settings);
+        baseFrame.copyFrom(frame);
+        baseFrameValid = true;
+        overlayActive = false;
     }
 
-    public void applyBaseColor(KeyMapping binding) {
-        if (!active || binding == null) {
-            return;
-        }
-
-        int scanCode = resolveScanCode(binding);
-        int logiKey = resolveLogiKey(binding);
-        if (scanCode <= 0 && logiKey < 0) {
-            return;
-        }
-
-        int color = config.getColorForCategory(resolveCategory(binding));
-        setSolidColorOnResolvedKey(logiKey, scanCode, color);
-    }
-
+    @Override
     public void setSolidColor(int color) {
         if (!active) {
             return;
         }
-        int[] rgb = splitColor(color);
-        boolean mouseEnabled = config.isMouseLightingEnabled();
-        if (mouseEnabled) {
-            withDevice(LogiLED.LOGI_DEVICETYPE_ALL, () -> LogiLED.LogiLedSetLighting(rgb[0], rgb[1], rgb[2]));
-        } else {
-            if (lastMouseLightingEnabled) {
-                withDevice(LogiLED.LOGI_DEVICETYPE_ALL, () -> LogiLED.LogiLedSetLighting(0, 0, 0));
-            }
-            withDevice(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB, () -> LogiLED.LogiLedSetLighting(rgb[0], rgb[1], rgb[2]));
-        }
-        lastMouseLightingEnabled = mouseEnabled;
+        frame.fill(color);
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
     }
 
     public void setFlashingColor(int color, int dutyCycleMs) {
         if (!active) {
             return;
         }
-        int[] rgb = splitColor(color);
-        boolean mouseEnabled = config.isMouseLightingEnabled();
-        int targetDevice = mouseEnabled ? LogiLED.LOGI_DEVICETYPE_ALL : LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        withDevice(targetDevice, () -> LogiLED.LogiLedFlashLighting(rgb[0], rgb[1], rgb[2], LogiLED.LOGI_LED_DURATION_INFINITE, dutyCycleMs));
-        if (!mouseEnabled && lastMouseLightingEnabled) {
-            withDevice(LogiLED.LOGI_DEVICETYPE_ALL, LogiLED::LogiLedStopEffects);
-        }
-        lastMouseLightingEnabled = mouseEnabled;
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
+        frame.setEffect(LedFrame.EFFECT_FLASH, color, dutyCycleMs);
     }
 
     public void setPulsingColor(int color, int dutyCycleMs) {
         if (!active) {
             return;
         }
-        int[] rgb = splitColor(color);
-        boolean mouseEnabled = config.isMouseLightingEnabled();
-        int targetDevice = mouseEnabled ? LogiLED.LOGI_DEVICETYPE_ALL : LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        withDevice(targetDevice, () -> LogiLED.LogiLedPulseLighting(rgb[0], rgb[1], rgb[2], LogiLED.LOGI_LED_DURATION_INFINITE, dutyCycleMs));
-        if (!mouseEnabled && lastMouseLightingEnabled) {
-            withDevice(LogiLED.LOGI_DEVICETYPE_ALL, LogiLED::LogiLedStopEffects);
-        }
-        lastMouseLightingEnabled = mouseEnabled;
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
+        frame.setEffect(LedFrame.EFFECT_PULSE, color, dutyCycleMs);
     }
 
     public void setSolidColorOnKey(KeyMapping binding, int color) {
@@ -199,6 +352,7 @@ public final class LightHandler {
         setSolidColorOnResolvedKey(logiKey, scanCode, color);
     }
 
+    @Override
     public void setSolidColorOnScanCode(int scanCode, int color) {
         setSolidColorOnResolvedKey(-1, scanCode, color);
     }
@@ -207,61 +361,182 @@ public final class LightHandler {
         if (!active) {
             return;
         }
-        int[] rgb = splitColor(color);
-        withDevice(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB, () -> {
-            if (logiKey >= 0) {
-                LogiLED.LogiLedSetLightingForKeyWithKeyName(logiKey, rgb[0], rgb[1], rgb[2]);
-            }
-            if (scanCode > 0) {
-                keyLastColor.put(scanCode, color & 0xFFFFFF);
-                LogiLED.LogiLedSetLightingForKeyWithScanCode(scanCode, rgb[0], rgb[1], rgb[2]);
-            }
-        });
+        if (logiKey >= 0) {
+            frame.setKeyName(logiKey, color);
+        }
+        if (scanCode > 0) {
+            keyLastColor.put(scanCode, color & 0xFFFFFF);
+            frame.setScanCode(scanCode, color);
+        }
+    }
+
+    @Override
+    public void stopEffects() {
+        if (!active || frame.getEffect() == LedFrame.EFFECT_NONE) {
+            return;
+        }
+        frame.setEffect(LedFrame.EFFECT_NONE, 0, 0);
+    }
+
+    @Override
+    public void setDrawPriority(int priority) {
+        frame.setDrawPriority(priority);
+    }
+
+    public boolean isOverlayActive() {
+        return overlayActive;
     }
 
-    public void setFlashingColorOnScanCode(int scanCode, int color, int dutyCycleMs) {
-        if (!active || scanCode <= 0) {
+    // Overlays (death, pause, chat) cover the whole device; the base frame is kept so the commit diff only restores keys that differ.
+    public void beginOverlay(int color) {
+        if (!active) {
             return;
         }
-        int[] rgb = splitColor(color);
-        withDevice(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB, () -> LogiLED.LogiLedFlashSingleKey(scanCode, rgb[0], rgb[1], rgb[2], dutyCycleMs, dutyCycleMs));
+        stopEffects();
+        overlayActive = true;
+        setSolidColor(color);
     }
 
-    public void setPulsingColorOnScanCode(int scanCode, int color, int dutyCycleMs) {
-        if (!active || scanCode <= 0) {
+    public void endOverlay() {
+        if (!active || !overlayActive) {
+            return;
+        }
+        overlayActive = false;
+        if (!baseFrameValid) {
+            stopEffects();
+            initBaseLighting();
             return;
         }
-        int[] rgb = splitColor(color);
-        int[] previous = splitColor(keyLastColor.get(scanCode));
-        withDevice(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB, () -> LogiLED.LogiLedPulseSingleKey(scanCode, previous[0], previous[1], previous[2], rgb[0], rgb[1], rgb[2], dutyCycleMs, true));
+        frame.copyFrom(baseFrame);
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
+        keyLastColor.clear();
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            int color = baseFrame.getScanCode(code);
+            if (color != LedFrame.UNSET) {
+                keyLastColor.put(code, color);
+            }
+        }
     }
 
-    public void stopEffects() {
+    // Power-save frame: the base lighting at the given brightness, with effects and highlights dropped.
+    public void drawIdleFrame(int percent) {
         if (!active) {
             return;
         }
-        withDevice(LogiLED.LOGI_DEVICETYPE_ALL, LogiLED::LogiLedStopEffects);
+        if (!baseFrameValid) {
+            initBaseLighting();
+        }
+        frame.copyFrom(baseFrame);
+        frame.clearEvents();
+        frame.setEffect(LedFrame.EFFECT_NONE, 0, 0);
+        frame.dim(percent);
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
+    }
+
+    // Typing mode: sets the frame being drawn aside and shows the plain base lighting until resumeDrawing().
+    public void suspendDrawing() {
+        if (!active || suspended) {
+            return;
+        }
+        suspendedFrame.copyFrom(frame);
+        suspendedFrame.clearEvents();
+        suspended = true;
+        drawIdleFrame(100);
     }
 
-    public void saveCurrentLighting() {
+    public void resumeDrawing() {
+        if (!suspended) {
+            return;
+        }
+        suspended = false;
+        if (active) {
+            frame.copyFrom(suspendedFrame);
+            frame.setMouseMirror(config.current().isMouseLightingEnabled());
+        }
+    }
+
+    // Puts one key back to what the base lighting gives it, for layers that borrow a few keys of the board.
+    public void restoreBaseColor(int scanCode) {
+        if (!active || !baseFrameValid) {
+            return;
+        }
+        paintScanCode(scanCode, baseFrame.getScanCode(scanCode));
+    }
+
+    // Puts back a key a layer drew over, given what it showed beforehand; UNSET takes it from the base lighting.
+    public void restoreKey(int scanCode, int saved) {
+        if (saved == LedFrame.UNSET) {
+            restoreBaseColor(scanCode);
+        } else {
+            setSolidColorOnScanCode(scanCode, saved);
+        }
+    }
+
+    private void paintScanCode(int scanCode, int color) {
+        if (color == LedFrame.UNSET) {
+            keyLastColor.remove(scanCode);
+            frame.clearScanCode(scanCode);
+        } else {
+            setSolidColorOnResolvedKey(-1, scanCode, color);
+        }
+    }
+
+    // Recolors the fill behind unlit keys, in the base lighting as well so key layers restore onto the new fill.
+    public void setBackgroundColor(int color) {
         if (!active) {
             return;
         }
-        int target = config.isMouseLightingEnabled() ? LogiLED.LOGI_DEVICETYPE_ALL : LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        withDevice(target, LogiLED::LogiLedSaveCurrentLighting);
+        frame.setBackground(color);
+        if (baseFrameValid) {
+            baseFrame.setBackground(color);
+        }
     }
 
-    public void restoreLastLighting() {
+    // The frame as last drawn; read-only, and only from the client thread.
+    public LedFrame getFrame() {
+        return frame;
+    }
+
+    // Config-screen preview: paints one key straight into the frame and commits it, so the keyboard shows an
+    // edit before it is saved. UNSET shows the key as the base lighting draws it without its override.
+    public void previewKeyColor(int scanCode, int color) {
         if (!active) {
             return;
         }
-        withDevice(LogiLED.LOGI_DEVICETYPE_ALL, LogiLED::LogiLedStopEffects);
-        int target = config.isMouseLightingEnabled() ? LogiLED.LOGI_DEVICETYPE_ALL : LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        withDevice(target, LogiLED::LogiLedRestoreLighting);
-        initBaseLighting();
+        if (color == LedFrame.UNSET && baseFrameValid) {
+            color = underOverrides.containsKey(scanCode) ? underOverrides.get(scanCode) : baseFrame.getScanCode(scanCode);
+        }
+        paintScanCode(scanCode, color);
+        previewing = true;
+        touchPreview();
+        commitFrame();
+    }
+
+    // Called by the preview every time it draws; once it stops, takeAbandonedPreview() reports it.
+    public void touchPreview() {
+        previewTouchedNanos = System.nanoTime();
+    }
+
+    // True once after a preview with edits has stopped drawing, so the caller can put the real lighting back.
+    public boolean takeAbandonedPreview(long now) {
+        if (!previewing || now - previewTouchedNanos < PREVIEW_ABANDON_NANOS) {
+            return false;
+        }
+        previewing = false;
+        return true;
     }
 
     public void shutdown(boolean silent) {
+        stop(silent, false);
+    }
+
+    // As shutdown(), but the output stays ready to take the LEDs back: the LED helper keeps running and only
+    // hands the device back, so regaining focus does not start a new process.
+    public void release() {
+        stop(true, true);
+    }
+
+    private void stop(boolean silent, boolean keepOutput) {
         if (!active) {
             return;
         }
@@ -269,9 +544,16 @@ public final class LightHandler {
             GLights.LOGGER.info("Shutting down Logitech LED SDK");
         }
         active = false;
-        currentTargetDevice = LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
-        lastMouseLightingEnabled = config.isMouseLightingEnabled();
-        LogiLED.LogiLedShutdown();
+        overlayActive = false;
+        suspended = false;
+        ownsLeds = false;
+        arbiter.release();
+        stopRecording();
+        if (keepOutput) {
+            output.release();
+        } else {
+            output.close();
+        }
     }
 
     public boolean restart(boolean silent) {
@@ -279,7 +561,13 @@ public final class LightHandler {
             initBaseLighting();
             return true;
         }
+        long now = System.nanoTime();
+        if (restartFailed && now - restartAtNanos < 0) {
+            return false;
+        }
         if (!startLedSdk(silent)) {
+            restartFailed = true;
+            restartAtNanos = now + restartBackoff.next();
             return false;
         }
         initBaseLighting();
@@ -293,6 +581,16 @@ public final class LightHandler {
         return true;
     }
 
+    // The output initialises the SDK on its own thread and found it unavailable: stop, and let restart() retry after
+    // the backoff.
+    private void onOutputFailed() {
+        long delay = restartBackoff.next();
+        GLights.LOGGER.warn("Logitech LED SDK could not be initialised; retrying in {} ms", TimeUnit.NANOSECONDS.toMillis(delay));
+        shutdown(true);
+        restartFailed = true;
+        restartAtNanos = System.nanoTime() + delay;
+    }
+
     public void addRestartCallback(Runnable callback) {
         restartCallbacks.add(callback);
     }
@@ -301,7 +599,7 @@ public final class LightHandler {
         if (!active) {
             return;
         }
-        shutdown(true);
+        release();
         restart(true);
     }
 
@@ -375,7 +673,7 @@ public final class LightHandler {
         if (!active) {
             return;
         }
-        int defaultColor = config.getColorForCategory(ConfigManager.CATEGORY_INVENTORY);
+        int defaultColor = config.current().getColor(ConfigManager.CATEGORY_ID_INVENTORY);
         for (int keysym : FUNCTION_KEY_KEYSYMS) {
             int scancode = GLFW.glfwGetKeyScancode(keysym);
             if (scancode > 0 && keyLastColor.containsKey(scancode)) {
@@ -388,22 +686,30 @@ public final class LightHandler {
         }
     }
 
-    private void applyWasdOverride() {
-        if (!active) {
-            return;
+    private void planWasdOverride() {
+        int color = config.current().getWasdColor();
+        for (KeyMapping binding : new KeyMapping[] {client.options.keyUp, client.options.keyLeft, client.options.keyDown, client.options.keyRight}) {
+            keyPlan.offer(resolveLogiKey(binding), resolveScanCode(binding), PhysicalKeyPlan.PRIORITY_OVERRIDE,
+                    ConfigManager.CATEGORY_WASD, binding.getName(), color);
+        }
+    }
+
+    // Per-key overrides go into the base frame here, so effects that restore the base restore them too.
+    private void applyKeyOverrides(ConfigSnapshot settings) {
+        underOverrides.clear();
+        for (int i = 0; i < settings.getKeyOverrideCount(); i++) {
+            int scanCode = settings.getKeyOverrideCode(i);
+            underOverrides.put(scanCode, frame.getScanCode(scanCode));
+            setSolidColorOnResolvedKey(-1, scanCode, settings.getKeyOverride(scanCode));
         }
-        int color = config.getWasdColor();
-        setSolidColorOnKey(client.options.keyUp, color);
-        setSolidColorOnKey(client.options.keyLeft, color);
-        setSolidColorOnKey(client.options.keyDown, color);
-        setSolidColorOnKey(client.options.keyRight, color);
     }
 
     private void applyBackgroundFill() {
         if (!active) {
             return;
         }
-        int color = config.isBackgroundFillEnabled() ? config.getBackgroundFillColor() : 0x000000;
+        ConfigSnapshot settings = config.current();
+        int color = settings.isBackgroundFillEnabled() ? settings.getBackgroundFillColor() : 0x000000;
         setSolidColor(color);
     }
 
@@ -460,45 +766,11 @@ public final class LightHandler {
         }
     }
 
-    public Int2IntMap getCurrentColors() {
-        return keyLastColor;
-    }
-
-    private static int[] splitColor(int hex) {
-        int sanitized = hex & 0xFFFFFF;
-        int red = (sanitized >> 16) & 0xFF;
-        int green = (sanitized >> 8) & 0xFF;
-        int blue = sanitized & 0xFF;
-        return new int[] {
-                Math.round(red / 255.0F * 100.0F),
-                Math.round(green / 255.0F * 100.0F),
-                Math.round(blue / 255.0F * 100.0F)
-        };
-    }
-
-    private void withDevice(int targetDevice, Runnable action) {
-        if (!active || action == null) {
-            return;
-        }
-        int previous = currentTargetDevice;
-        if (previous != targetDevice) {
-            if (!LogiLED.LogiLedSetTargetDevice(targetDevice)) {
-                GLights.LOGGER.warn("Failed to switch Logitech target device to {}", targetDevice);
-                return;
-            }
-            currentTargetDevice = targetDevice;
-        }
-        try {
-            action.run();
-        } finally {
-            if (previous != targetDevice) {
-                if (LogiLED.LogiLedSetTargetDevice(previous)) {
-                    currentTargetDevice = previous;
-                } else {
-                    GLights.LOGGER.warn("Failed to restore Logitech target device to {}", previous);
-                }
-            }
-        }
+    @Override
+    public int[] getLitScanCodes() {
+        int[] scanCodes = keyLastColor.keySet().toIntArray();
+        Arrays.sort(scanCodes);
+        return scanCodes;
     }
 
     private static String resolveCategory(KeyMapping binding) {
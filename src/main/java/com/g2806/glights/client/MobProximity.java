@@ -0,0 +1,158 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.LedFrame;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.monster.Enemy;
+import net.minecraft.world.level.entity.EntityTypeTest;
+import net.minecraft.world.phys.AABB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Hostile mobs around the player: W, A, S or D towards each one and the left or right edge keys for the side it is
+// on, brighter the closer it is. The search box is cut into slices and one slice is queried every other tick with a
+// cap on results, so a tick costs at most one bounded lookup however many entities the client has loaded. Between
+// scans the mobs found last are re-read in place, so turning around updates the keys without a new scan.
+final class MobProximity {
+    private static final int SLICES = 4;
+    private static final int SLICE_INTERVAL_TICKS = 2;
+    private static final int MAX_TRACKED = 32;
+    private static final double VERTICAL_REACH = 8.0;
+    private static final int LEVELS = 4;
+    // Side keys light for mobs more than about 20 degrees off the view axis.
+    private static final double SIDE_RATIO = 0.4;
+    private static final int FRONT = 0;
+    private static final int LEFT = 1;
+    private static final int BACK = 2;
+    private static final int RIGHT = 3;
+    private static final int LEFT_SIDE = 4;
+    private static final int RIGHT_SIDE = 5;
+    private static final int ZONES = 6;
+    // Esc, `, Tab, Caps, left Shift, Ctrl, Win and Alt.
+    private static final int[] LEFT_EDGE = {0x01, 0x29, 0x0F, 0x3A, 0x2A, 0x1D, 0x15B, 0x38};
+    // Backspace, \, Enter, right Shift and Ctrl, and the navigation cluster.
+    private static final int[] RIGHT_EDGE = {0x0E, 0x2B, 0x1C, 0x36, 0x11D, 0x152, 0x147, 0x149, 0x153, 0x14F, 0x151};
+    private static final EntityTypeTest<Entity, Mob> MOBS = EntityTypeTest.forClass(Mob.class);
+
+    private final Minecraft client;
+    private final LightHandler handler;
+    private final List<Mob> tracked = new ArrayList<>(MAX_TRACKED);
+    private final List<Mob> scanning = new ArrayList<>(MAX_TRACKED);
+    // Movement keys by zone, resolved from the bindings; 0 until resolved.
+    private final int[] wasdCodes = new int[4];
+    private final float[] closeness = new float[ZONES];
+    // Brightness step each zone was last drawn at; -1 forces a redraw.
+    private final int[] levels = new int[ZONES];
+    private int tick;
+    private int slice;
+
+    MobProximity(Minecraft client, LightHandler handler) {
+        this.client = client;
+        this.handler = handler;
+        Arrays.fill(levels, -1);
+    }
+
+    void update(LocalPlayer player, ConfigSnapshot settings) {
+        if (!settings.isMobProximityEnabled()) {
+            tracked.clear();
+            scanning.clear();
+            slice = 0;
+            return;
+        }
+        int radius = settings.getMobProximityRadius();
+        scan(player, radius);
+        measure(player, radius);
+        if (wasdCodes[FRONT] == 0) {
+            wasdCodes[FRONT] = handler.resolveScanCode(client.options.keyUp);
+            wasdCodes[LEFT] = handler.resolveScanCode(client.options.keyLeft);
+            wasdCodes[BACK] = handler.resolveScanCode(client.options.keyDown);
+            wasdCodes[RIGHT] = handler.resolveScanCode(client.options.keyRight);
+        }
+        int color = settings.getColor(ConfigManager.CATEGORY_ID_MOB_PROXIMITY);
+        for (int zone = 0; zone < ZONES; zone++) {
+            int level = (int) Math.ceil(closeness[zone] * LEVELS);
+            if (level == levels[zone]) {
+                continue;
+            }
+            levels[zone] = level;
+            if (zone < wasdCodes.length) {
+                paint(wasdCodes[zone], level, color);
+            } else {
+                for (int code : zone == LEFT_SIDE ? LEFT_EDGE : RIGHT_EDGE) {
+                    paint(code, level, color);
+                }
+            }
+        }
+    }
+
+    // The next update redraws every zone and re-reads the movement bindings.
+    void invalidate() {
+        Arrays.fill(levels, -1);
+        Arrays.fill(wasdCodes, 0);
+    }
+
+    private void scan(LocalPlayer player, int radius) {
+        if (tick++ % SLICE_INTERVAL_TICKS != 0) {
+            return;
+        }
+        if (slice == 0) {
+            scanning.clear();
+        }
+        if (scanning.size() < MAX_TRACKED) {
+            double width = radius * 2.0 / SLICES;
+            double minX = player.getX() - radius + slice * width;
+            AABB box = new AABB(minX, player.getY() - VERTICAL_REACH, player.getZ() - radius,
+                    minX + width, player.getY() + VERTICAL_REACH, player.getZ() + radius);
+            player.level().getEntities(MOBS, box, mob -> mob instanceof Enemy && mob.isAlive(), scanning,
+                    MAX_TRACKED - scanning.size());
+        }
+        if (++slice == SLICES) {
+            slice = 0;
+            tracked.clear();
+            tracked.addAll(scanning);
+        }
+    }
+
+    private void measure(LocalPlayer player, int radius) {
+        Arrays.fill(closeness, 0.0F);
+        double yaw = Math.toRadians(player.getYRot());
+        double sin = Math.sin(yaw);
+        double cos = Math.cos(yaw);
+        for (Mob mob : tracked) {
+            if (mob.isRemoved() || !mob.isAlive()) {
+                continue;
+            }
+            float near = (float) (1.0 - Math.sqrt(player.distanceToSqr(mob)) / radius);
+            if (near <= 0.0F) {
+                continue;
+            }
+            double dx = mob.getX() - player.getX();
+            double dz = mob.getZ() - player.getZ();
+            double forward = -dx * sin + dz * cos;
+            double right = -dx * cos - dz * sin;
+            int zone = Math.abs(forward) >= Math.abs(right) ? (forward >= 0.0 ? FRONT : BACK) : (right >= 0.0 ? RIGHT : LEFT);
+            closeness[zone] = Math.max(closeness[zone], near);
+            if (Math.abs(right) > Math.abs(forward) * SIDE_RATIO) {
+                int side = right >= 0.0 ? RIGHT_SIDE : LEFT_SIDE;
+                closeness[side] = Math.max(closeness[side], near);
+            }
+        }
+    }
+
+    private void paint(int scanCode, int level, int color) {
+        if (scanCode <= 0) {
+            return;
+        }
+        if (level == 0) {
+            handler.restoreBaseColor(scanCode);
+        } else {
+            handler.setSolidColorOnScanCode(scanCode, LedFrame.scale(color, 100 * level / LEVELS));
+        }
+    }
+}
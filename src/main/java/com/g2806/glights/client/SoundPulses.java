@@ -0,0 +1,161 @@
+package com.g2806.glights.client;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.KeyboardLayout;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.PulseQueue;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.client.resources.sounds.SoundInstance;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.util.Mth;
+
+// Short per-key pulses for game sounds. Note blocks play along the letter rows by pitch, hits light the home row on
+// the side they came from, and records pulse in the music color. A sound costs one classification and one queue
+// slot, with no allocation; the queue keeps the newest pulses when it overflows, and each tick touches at most
+// MAX_KEYS_PER_TICK keys, fades included.
+final class SoundPulses {
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int MAX_PULSES = 16;
+    private static final int MAX_KEYS_PER_TICK = 8;
+    private static final int PULSE_TICKS = 6;
+    private static final int LEVELS = 3;
+    // Note block notes 0-24, low to high: bottom, home and top letter rows.
+    private static final String[] PIANO = {"Z", "X", "C", "V", "B", "N", "M", ",", ".", "/", "A", "S", "D", "F", "G", "H",
+            "J", "K", "L", ";", "'", "Q", "W", "E", "R"};
+    private static final String[] HOME_ROW = {"A", "S", "D", "F", "G", "H", "J", "K", "L"};
+    // The note particle colors: once around the hue circle over the two octaves.
+    private static final int[] NOTE_COLORS = new int[PIANO.length];
+
+    static {
+        for (int note = 0; note < NOTE_COLORS.length; note++) {
+            NOTE_COLORS[note] = Mth.hsvToRgb(note / 24.0F, 1.0F, 1.0F) & 0xFFFFFF;
+        }
+    }
+
+    private final LightHandler handler;
+    private final PulseQueue queue = new PulseQueue(QUEUE_CAPACITY);
+    private final int[] pianoCodes = new int[PIANO.length];
+    private final int[] homeRowCodes = new int[HOME_ROW.length];
+    private final int[] pulseCodes = new int[MAX_PULSES];
+    private final int[] pulseColors = new int[MAX_PULSES];
+    // What each pulsing key showed before its pulse, handed back to restoreKey() when it ends.
+    private final int[] pulseSaved = new int[MAX_PULSES];
+    private final int[] pulseAges = new int[MAX_PULSES];
+    private final int[] pulseLevels = new int[MAX_PULSES];
+    private int active;
+
+    SoundPulses(LightHandler handler) {
+        this.handler = handler;
+        KeyboardLayout layout = KeyboardLayout.tenkeyless();
+        for (int i = 0; i < PIANO.length; i++) {
+            pianoCodes[i] = layout.scanCodeOf(PIANO[i]);
+        }
+        for (int i = 0; i < HOME_ROW.length; i++) {
+            homeRowCodes[i] = layout.scanCodeOf(HOME_ROW[i]);
+        }
+    }
+
+    // Called once the engine has started the sound, so its pitch has been resolved.
+    void offer(SoundInstance sound, LocalPlayer player, ConfigSnapshot settings) {
+        String path = sound.getLocation().getPath();
+        SoundSource source = sound.getSource();
+        if (path.startsWith("block.note_block.")) {
+            // Note blocks play at 2^((note - 12) / 12).
+            int note = Math.round(12.0F * (float) (Math.log(sound.getPitch()) / Math.log(2.0))) + 12;
+            note = Math.max(0, Math.min(PIANO.length - 1, note));
+            queue.offer(pianoCodes[note], NOTE_COLORS[note]);
+        } else if (source == SoundSource.RECORDS) {
+            int key = (sound.getLocation().hashCode() & Integer.MAX_VALUE) % pianoCodes.length;
+            queue.offer(pianoCodes[key], settings.getColor(ConfigManager.CATEGORY_ID_SOUND_MUSIC));
+        } else if ((source == SoundSource.HOSTILE || source == SoundSource.NEUTRAL || source == SoundSource.PLAYERS)
+                && (path.endsWith(".hurt") || path.contains(".attack."))) {
+            double side = FlashRipple.sideOf(player, sound.getX() - player.getX(), sound.getZ() - player.getZ());
+            int key = (int) Math.round((side + 1.0) / 2.0 * (homeRowCodes.length - 1));
+            queue.offer(homeRowCodes[key], settings.getColor(ConfigManager.CATEGORY_ID_SOUND_HIT));
+        }
+    }
+
+    // Fades the running pulses and starts queued ones within the per-tick key budget. Returns true on the tick the
+    // last pulse ends.
+    boolean update() {
+        if (active == 0 && queue.isEmpty()) {
+            return false;
+        }
+        int budget = MAX_KEYS_PER_TICK;
+        handler.setDrawPriority(LedFrame.PRIORITY_AMBIENT);
+        for (int i = 0; i < active; i++) {
+            int level = levelAt(pulseAges[i] + 1);
+            if (level != pulseLevels[i]) {
+                // Out of budget: the pulse holds its step and fades on a later tick.
+                if (budget == 0) {
+                    continue;
+                }
+                budget--;
+                pulseLevels[i] = level;
+                draw(i);
+            }
+            if (++pulseAges[i] >= PULSE_TICKS) {
+                remove(i--);
+            }
+        }
+        while (budget > 0 && !queue.isEmpty()) {
+            long pulse = queue.poll();
+            start(PulseQueue.scanCodeOf(pulse), PulseQueue.colorOf(pulse));
+            budget--;
+        }
+        handler.setDrawPriority(LedFrame.PRIORITY_NORMAL);
+        return active == 0;
+    }
+
+    // Forgets the pulses and the queue; the keys are left as they are.
+    void cancel() {
+        active = 0;
+        queue.clear();
+    }
+
+    private void start(int code, int color) {
+        if (code <= 0) {
+            return;
+        }
+        int index = 0;
+        while (index < active && pulseCodes[index] != code) {
+            index++;
+        }
+        if (index == active) {
+            if (active == MAX_PULSES) {
+                return;
+            }
+            active++;
+            pulseCodes[index] = code;
+            pulseSaved[index] = handler.getFrame().getScanCode(code);
+        }
+        pulseColors[index] = color;
+        pulseAges[index] = 0;
+        pulseLevels[index] = LEVELS;
+        draw(index);
+    }
+
+    private void remove(int index) {
+        active--;
+        pulseCodes[index] = pulseCodes[active];
+        pulseColors[index] = pulseColors[active];
+        pulseSaved[index] = pulseSaved[active];
+        pulseAges[index] = pulseAges[active];
+        pulseLevels[index] = pulseLevels[active];
+    }
+
+    private void draw(int index) {
+        int code = pulseCodes[index];
+        int level = pulseLevels[index];
+        if (level > 0) {
+            handler.setSolidColorOnScanCode(code, LedFrame.scale(pulseColors[index], 100 * level / LEVELS));
+        } else {
+            handler.restoreKey(code, pulseSaved[index]);
+        }
+    }
+
+    private static int levelAt(int age) {
+        return (PULSE_TICKS - Math.min(age, PULSE_TICKS)) * LEVELS / PULSE_TICKS;
+    }
+}
@@ -1,9 +1,13 @@
 package com.g2806.glights.client.config;
 
 import com.g2806.glights.GLights;
+import com.g2806.glights.client.led.KeyRow;
+import com.g2806.glights.client.led.KeyboardLayout;
+import com.g2806.glights.client.led.LedFrame;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -15,7 +19,10 @@ import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -27,6 +34,50 @@ public final class ConfigManager {
     public static final String CATEGORY_INVENTORY_SELECTED = "key.categories.inventory.selected";
     public static final String CATEGORY_WASD = "key.glights.special.wasd";
     public static final String CATEGORY_BACKGROUND = "key.glights.special.background";
+    // Hotbar key tints by the kind of item in the slot.
+    public static final String CATEGORY_HOTBAR_WEAPON = "key.glights.hotbar.weapon";
+    public static final String CATEGORY_HOTBAR_TOOL = "key.glights.hotbar.tool";
+    public static final String CATEGORY_HOTBAR_FOOD = "key.glights.hotbar.food";
+    public static final String CATEGORY_HOTBAR_BLOCK = "key.glights.hotbar.block";
+    public static final String CATEGORY_HOTBAR_EMPTY = "key.glights.hotbar.empty";
+    // Colors of the lit keys of each bar widget.
+    public static final String CATEGORY_BAR_HEALTH = "key.glights.bar.health";
+    public static final String CATEGORY_BAR_FOOD = "key.glights.bar.food";
+    public static final String CATEGORY_BAR_AIR = "key.glights.bar.air";
+    public static final String CATEGORY_BAR_XP = "key.glights.bar.xp";
+    public static final String CATEGORY_MOB_PROXIMITY = "key.glights.special.mob_proximity";
+    public static final String CATEGORY_EXPLOSION_FLASH = "key.glights.special.explosion_flash";
+    public static final String CATEGORY_LIGHTNING_FLASH = "key.glights.special.lightning_flash";
+    public static final String CATEGORY_SOUND_HIT = "key.glights.special.sound_hit";
+    public static final String CATEGORY_SOUND_MUSIC = "key.glights.special.sound_music";
+    // Fixed ConfigSnapshot ids of the categories above; every other category is numbered as it is first seen.
+    public static final int CATEGORY_ID_UNKNOWN = 0;
+    public static final int CATEGORY_ID_DEAD = 1;
+    public static final int CATEGORY_ID_INVENTORY = 2;
+    public static final int CATEGORY_ID_INVENTORY_SELECTED = 3;
+    public static final int CATEGORY_ID_WASD = 4;
+    public static final int CATEGORY_ID_BACKGROUND = 5;
+    public static final int CATEGORY_ID_HOTBAR_WEAPON = 6;
+    public static final int CATEGORY_ID_HOTBAR_TOOL = 7;
+    public static final int CATEGORY_ID_HOTBAR_FOOD = 8;
+    public static final int CATEGORY_ID_HOTBAR_BLOCK = 9;
+    public static final int CATEGORY_ID_HOTBAR_EMPTY = 10;
+    public static final int CATEGORY_ID_BAR_HEALTH = 11;
+    public static final int CATEGORY_ID_BAR_FOOD = 12;
+    public static final int CATEGORY_ID_BAR_AIR = 13;
+    public static final int CATEGORY_ID_BAR_XP = 14;
+    public static final int CATEGORY_ID_MOB_PROXIMITY = 15;
+    public static final int CATEGORY_ID_EXPLOSION_FLASH = 16;
+    public static final int CATEGORY_ID_LIGHTNING_FLASH = 17;
+    public static final int CATEGORY_ID_SOUND_HIT = 18;
+    public static final int CATEGORY_ID_SOUND_MUSIC = 19;
+    public static final int DEFAULT_NATIVE_CALL_BUDGET = 64;
+    public static final int MAX_NATIVE_CALL_BUDGET = 512;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 120;
+    public static final int MAX_IDLE_TIMEOUT_SECONDS = 1800;
+    public static final int DEFAULT_MOB_PROXIMITY_RADIUS = 16;
+    public static final int MIN_MOB_PROXIMITY_RADIUS = 4;
+    public static final int MAX_MOB_PROXIMITY_RADIUS = 32;
 
     private static final int DEFAULT_UNKNOWN_COLOR = 0xFF0000;
     private static final int DEFAULT_DEAD_COLOR = 0xFF0000;
@@ -44,6 +95,20 @@ public final class ConfigManager {
             .put(CATEGORY_INVENTORY_SELECTED, DEFAULT_HIGHLIGHT_COLOR)
             .put(CATEGORY_WASD, DEFAULT_WASD_COLOR)
             .put(CATEGORY_BACKGROUND, DEFAULT_BACKGROUND_COLOR)
+            .put(CATEGORY_HOTBAR_WEAPON, 0xFF2020)
+            .put(CATEGORY_HOTBAR_TOOL, 0xFFB000)
+            .put(CATEGORY_HOTBAR_FOOD, 0x40FF40)
+            .put(CATEGORY_HOTBAR_BLOCK, 0x8B5A2B)
+            .put(CATEGORY_HOTBAR_EMPTY, 0x101010)
+            .put(CATEGORY_BAR_HEALTH, 0xE01010)
+            .put(CATEGORY_BAR_FOOD, 0xC07020)
+            .put(CATEGORY_BAR_AIR, 0x40A0FF)
+            .put(CATEGORY_BAR_XP, 0x80FF20)
+            .put(CATEGORY_MOB_PROXIMITY, 0xFF2000)
+            .put(CATEGORY_EXPLOSION_FLASH, 0xFF8000)
+            .put(CATEGORY_LIGHTNING_FLASH, 0xC8DCFF)
+            .put(CATEGORY_SOUND_HIT, 0xFFFFFF)
+            .put(CATEGORY_SOUND_MUSIC, 0xFF40C0)
             .put("key.categories.movement", 0x00DCFF)
             .put("key.categories.gameplay", 0xFFFFFF)
             .put("key.categories.creative", 0x8000FF)
@@ -55,9 +120,15 @@ public final class ConfigManager {
     private final Path path;
     private final Map<String, Integer> colors = new HashMap<>();
     private final Settings settings = new Settings();
+    // Per-key colors by scan code, winning over the binding category; UNSET where there is no override.
+    private final int[] keyOverrides = new int[LedFrame.KEY_SLOTS];
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private Map<String, Integer> publishedCategoryIds = Map.of();
+    private volatile ConfigSnapshot current;
+    private int version;
     private boolean dirty;
 
-    private static final class Settings {
+    static final class Settings {
         boolean damageEffect = true;
         boolean underwaterEffect = true;
         boolean poisonEffect = true;
@@ -69,6 +140,25 @@ public final class ConfigManager {
         boolean backgroundFillEnabled = false;
         boolean mouseLightingEnabled = true;
         boolean highlightSelectedSlot = true;
+        boolean outOfProcess = false;
+        boolean recordFrames = false;
+        int nativeCallBudget = DEFAULT_NATIVE_CALL_BUDGET;
+        boolean idlePowerSave = true;
+        int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+        boolean idlePulse = false;
+        boolean itemAwareHotbar = true;
+        // "namespace:item=#RRGGBB" or "#namespace:tag=#RRGGBB", first match wins; always an immutable list.
+        List<String> hotbarItemRules = List.of();
+        boolean hotbarGauges = true;
+        KeyRow healthBarRow = KeyRow.NONE;
+        KeyRow foodBarRow = KeyRow.NONE;
+        KeyRow airBarRow = KeyRow.NONE;
+        KeyRow xpBarRow = KeyRow.NONE;
+        boolean mobProximity = false;
+        int mobProximityRadius = DEFAULT_MOB_PROXIMITY_RADIUS;
+        boolean flashEvents = true;
+        boolean soundReactive = false;
+        boolean ambientTheme = false;
 
         void reset() {
             damageEffect = true;
@@ -82,14 +172,121 @@ public final class ConfigManager {
             backgroundFillEnabled = false;
             mouseLightingEnabled = true;
             highlightSelectedSlot = true;
+            outOfProcess = false;
+            recordFrames = false;
+            nativeCallBudget = DEFAULT_NATIVE_CALL_BUDGET;
+            idlePowerSave = true;
+            idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+            idlePulse = false;
+            itemAwareHotbar = true;
+            hotbarItemRules = List.of();
+            hotbarGauges = true;
+            healthBarRow = KeyRow.NONE;
+            foodBarRow = KeyRow.NONE;
+            airBarRow = KeyRow.NONE;
+            xpBarRow = KeyRow.NONE;
+            mobProximity = false;
+            mobProximityRadius = DEFAULT_MOB_PROXIMITY_RADIUS;
+            flashEvents = true;
+            soundReactive = false;
+            ambientTheme = false;
+        }
+
+        Settings copy() {
+            Settings copy = new Settings();
+            copy.damageEffect = damageEffect;
+            copy.underwaterEffect = underwaterEffect;
+            copy.poisonEffect = poisonEffect;
+            copy.frozenEffect = frozenEffect;
+            copy.netherPortalEffect = netherPortalEffect;
+            copy.witherEffect = witherEffect;
+            copy.lowHealthBlink = lowHealthBlink;
+            copy.modEnabled = modEnabled;
+            copy.backgroundFillEnabled = backgroundFillEnabled;
+            copy.mouseLightingEnabled = mouseLightingEnabled;
+            copy.highlightSelectedSlot = highlightSelectedSlot;
+            copy.outOfProcess = outOfProcess;
+            copy.recordFrames = recordFrames;
+            copy.nativeCallBudget = nativeCallBudget;
+            copy.idlePowerSave = idlePowerSave;
+            copy.idleTimeoutSeconds = idleTimeoutSeconds;
+            copy.idlePulse = idlePulse;
+            copy.itemAwareHotbar = itemAwareHotbar;
+            copy.hotbarItemRules = hotbarItemRules;
+            copy.hotbarGauges = hotbarGauges;
+            copy.healthBarRow = healthBarRow;
+            copy.foodBarRow = foodBarRow;
+            copy.airBarRow = airBarRow;
+            copy.xpBarRow = xpBarRow;
+            copy.mobProximity = mobProximity;
+            copy.mobProximityRadius = mobProximityRadius;
+            copy.flashEvents = flashEvents;
+            copy.soundReactive = soundReactive;
+            copy.ambientTheme = ambientTheme;
+            return copy;
         }
     }
 
     public ConfigManager(Path path) {
         this.path = path;
+        Arrays.fill(keyOverrides, LedFrame.UNSET);
+        for (String category : new String[] {CATEGORY_UNKNOWN, CATEGORY_DEAD, CATEGORY_INVENTORY, CATEGORY_INVENTORY_SELECTED,
+                CATEGORY_WASD, CATEGORY_BACKGROUND, CATEGORY_HOTBAR_WEAPON, CATEGORY_HOTBAR_TOOL, CATEGORY_HOTBAR_FOOD,
+                CATEGORY_HOTBAR_BLOCK, CATEGORY_HOTBAR_EMPTY, CATEGORY_BAR_HEALTH, CATEGORY_BAR_FOOD, CATEGORY_BAR_AIR,
+                CATEGORY_BAR_XP, CATEGORY_MOB_PROXIMITY, CATEGORY_EXPLOSION_FLASH, CATEGORY_LIGHTNING_FLASH,
+                CATEGORY_SOUND_HIT, CATEGORY_SOUND_MUSIC}) {
+            intern(category);
+        }
+        publish();
+    }
+
+    // The configuration as last published; safe to read from any thread and never changes underneath the reader.
+    public ConfigSnapshot current() {
+        return current;
+    }
+
+    // Makes everything set since the last publish visible to current() at once. The getters and setters on this
+    // class are the staging area the Mod Menu screen edits.
+    public void publish() {
+        for (String category : colors.keySet()) {
+            intern(category);
+        }
+        if (publishedCategoryIds.size() != categoryIds.size()) {
+            publishedCategoryIds = Map.copyOf(categoryIds);
+        }
+        int[] table = new int[categoryIds.size()];
+        for (Map.Entry<String, Integer> entry : categoryIds.entrySet()) {
+            Integer color = colors.get(entry.getKey());
+            table[entry.getValue()] = color != null ? color : defaultColorOf(entry.getKey());
+        }
+        int overrideCount = 0;
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            if (keyOverrides[code] != LedFrame.UNSET) {
+                overrideCount++;
+            }
+        }
+        int[] overrideCodes = new int[overrideCount];
+        for (int code = 1, next = 0; code < LedFrame.KEY_SLOTS; code++) {
+            if (keyOverrides[code] != LedFrame.UNSET) {
+                overrideCodes[next++] = code;
+            }
+        }
+        current = new ConfigSnapshot(++version, publishedCategoryIds, table, keyOverrides.clone(), overrideCodes, settings.copy());
+    }
+
+    private void intern(String category) {
+        if (!categoryIds.containsKey(category)) {
+            categoryIds.put(category, categoryIds.size());
+        }
     }
 
     public void load() {
+        read();
+        publish();
+    }
+
+    private void read() {
+        Arrays.fill(keyOverrides, LedFrame.UNSET);
         colors.clear();
         colors.putAll(DEFAULT_COLORS);
         settings.reset();
@@ -118,6 +315,10 @@ public final class ConfigManager {
                     readLegacyColors(object);
                 }
 
+                if (object.has("keyOverrides") && object.get("keyOverrides").isJsonObject()) {
+                    readKeyOverrides(object.getAsJsonObject("keyOverrides"));
+                }
+
                 if (object.has("settings") && object.get("settings").isJsonObject()) {
                     migratedFormat = true;
                     readSettings(object.getAsJsonObject("settings"));
@@ -143,7 +344,8 @@ public final class ConfigManager {
 
     public int getColorForCategory(String category) {
         Objects.requireNonNull(category, "category");
-        return colors.computeIfAbsent(category, this::defaultColorFor);
+        Integer color = colors.get(category);
+        return color != null ? color : defaultColorOf(category);
     }
 
     public void setColorForCategory(String category, int color) {
@@ -180,6 +382,14 @@ public final class ConfigManager {
         }
         root.add("colors", colorObject);
 
+        JsonObject overrideObject = new JsonObject();
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            if (keyOverrides[code] != LedFrame.UNSET) {
+                overrideObject.addProperty(String.format(Locale.ROOT, "0x%03X", code), String.format(Locale.ROOT, "0x%06X", keyOverrides[code]));
+            }
+        }
+        root.add("keyOverrides", overrideObject);
+
         JsonObject settingsObject = new JsonObject();
         settingsObject.addProperty("damageEffect", settings.damageEffect);
         settingsObject.addProperty("underwaterEffect", settings.underwaterEffect);
@@ -192,6 +402,28 @@ public final class ConfigManager {
         settingsObject.addProperty("backgroundFillEnabled", settings.backgroundFillEnabled);
     settingsObject.addProperty("mouseLightingEnabled", settings.mouseLightingEnabled);
         settingsObject.addProperty("highlightSelectedSlot", settings.highlightSelectedSlot);
+        settingsObject.addProperty("outOfProcess", settings.outOfProcess);
+        settingsObject.addProperty("recordFrames", settings.recordFrames);
+        settingsObject.addProperty("nativeCallBudget", settings.nativeCallBudget);
+        settingsObject.addProperty("idlePowerSave", settings.idlePowerSave);
+        settingsObject.addProperty("idleTimeoutSeconds", settings.idleTimeoutSeconds);
+        settingsObject.addProperty("idlePulse", settings.idlePulse);
+        settingsObject.addProperty("itemAwareHotbar", settings.itemAwareHotbar);
+        JsonArray rulesArray = new JsonArray();
+        for (String rule : settings.hotbarItemRules) {
+            rulesArray.add(rule);
+        }
+        settingsObject.add("hotbarItemRules", rulesArray);
+        settingsObject.addProperty("hotbarGauges", settings.hotbarGauges);
+        settingsObject.addProperty("healthBarRow", settings.healthBarRow.name().toLowerCase(Locale.ROOT));
+        settingsObject.addProperty("foodBarRow", settings.foodBarRow.name().toLowerCase(Locale.ROOT));
+        settingsObject.addProperty("airBarRow", settings.airBarRow.name().toLowerCase(Locale.ROOT));
+        settingsObject.addProperty("xpBarRow", settings.xpBarRow.name().toLowerCase(Locale.ROOT));
+        settingsObject.addProperty("mobProximity", settings.mobProximity);
+        settingsObject.addProperty("mobProximityRadius", settings.mobProximityRadius);
+        settingsObject.addProperty("flashEvents", settings.flashEvents);
+        settingsObject.addProperty("soundReactive", settings.soundReactive);
+        settingsObject.addProperty("ambientTheme", settings.ambientTheme);
         root.add("settings", settingsObject);
 
         try (Writer writer = Files.newBufferedWriter(path)) {
@@ -202,22 +434,23 @@ public final class ConfigManager {
         }
     }
 
+    // Gives every category a stored color and publishes, so each of them has an id in current().
     public void ensureDefaults(Iterable<String> categories) {
         for (String category : categories) {
-            if (category == null) {
+            if (category == null || colors.containsKey(category)) {
                 continue;
             }
-            getColorForCategory(category);
+            if (!DEFAULT_COLORS.containsKey(category)) {
+                dirty = true;
+            }
+            colors.put(category, defaultColorOf(category));
         }
+        publish();
     }
 
-    private int defaultColorFor(String category) {
-        Integer preset = DEFAULT_COLORS.get(category);
-        if (preset != null) {
-            return preset;
-        }
-        dirty = true;
-        return DEFAULT_INVENTORY_COLOR;
+    static int defaultColorOf(String category) {
+        Integer preset = category == null ? null : DEFAULT_COLORS.get(category);
+        return preset != null ? preset : DEFAULT_INVENTORY_COLOR;
     }
 
     private static int parseColor(String raw) {
@@ -244,6 +477,22 @@ public final class ConfigManager {
         }
     }
 
+    private void readKeyOverrides(JsonObject overridesObject) {
+        for (Map.Entry<String, JsonElement> entry : overridesObject.entrySet()) {
+            JsonElement valueElement = entry.getValue();
+            try {
+                int scanCode = Integer.decode(entry.getKey().trim());
+                if (!LedFrame.inRange(scanCode) || valueElement == null || !valueElement.isJsonPrimitive()) {
+                    throw new NumberFormatException();
+                }
+                keyOverrides[scanCode] = parseColor(valueElement.getAsString().trim()) & 0xFFFFFF;
+            } catch (NumberFormatException exception) {
+                GLights.LOGGER.warn("Ignoring malformed key override '{}' = '{}'", entry.getKey(), valueElement);
+                dirty = true;
+            }
+        }
+    }
+
     private void readLegacyColors(JsonObject legacyObject) {
         Map<String, String> raw = GSON.fromJson(legacyObject, TYPE);
         if (raw != null) {
@@ -280,6 +529,33 @@ public final class ConfigManager {
         settings.backgroundFillEnabled = getBoolean(settingsObject, "backgroundFillEnabled", settings.backgroundFillEnabled);
         settings.mouseLightingEnabled = getBoolean(settingsObject, "mouseLightingEnabled", settings.mouseLightingEnabled);
         settings.highlightSelectedSlot = getBoolean(settingsObject, "highlightSelectedSlot", settings.highlightSelectedSlot);
+        settings.outOfProcess = getBoolean(settingsObject, "outOfProcess", settings.outOfProcess);
+        settings.recordFrames = getBoolean(settingsObject, "recordFrames", settings.recordFrames);
+        settings.nativeCallBudget = getInt(settingsObject, "nativeCallBudget", settings.nativeCallBudget, 0, MAX_NATIVE_CALL_BUDGET);
+        settings.idlePowerSave = getBoolean(settingsObject, "idlePowerSave", settings.idlePowerSave);
+        settings.idleTimeoutSeconds = getInt(settingsObject, "idleTimeoutSeconds", settings.idleTimeoutSeconds, 0, MAX_IDLE_TIMEOUT_SECONDS);
+        settings.idlePulse = getBoolean(settingsObject, "idlePulse", settings.idlePulse);
+        settings.itemAwareHotbar = getBoolean(settingsObject, "itemAwareHotbar", settings.itemAwareHotbar);
+        settings.hotbarGauges = getBoolean(settingsObject, "hotbarGauges", settings.hotbarGauges);
+        settings.healthBarRow = getKeyRow(settingsObject, "healthBarRow", settings.healthBarRow);
+        settings.foodBarRow = getKeyRow(settingsObject, "foodBarRow", settings.foodBarRow);
+        settings.airBarRow = getKeyRow(settingsObject, "airBarRow", settings.airBarRow);
+        settings.xpBarRow = getKeyRow(settingsObject, "xpBarRow", settings.xpBarRow);
+        settings.mobProximity = getBoolean(settingsObject, "mobProximity", settings.mobProximity);
+        settings.mobProximityRadius = getInt(settingsObject, "mobProximityRadius", settings.mobProximityRadius,
+                MIN_MOB_PROXIMITY_RADIUS, MAX_MOB_PROXIMITY_RADIUS);
+        settings.flashEvents = getBoolean(settingsObject, "flashEvents", settings.flashEvents);
+        settings.soundReactive = getBoolean(settingsObject, "soundReactive", settings.soundReactive);
+        settings.ambientTheme = getBoolean(settingsObject, "ambientTheme", settings.ambientTheme);
+        if (settingsObject.has("hotbarItemRules") && settingsObject.get("hotbarItemRules").isJsonArray()) {
+            List<String> rules = new ArrayList<>();
+            for (JsonElement rule : settingsObject.getAsJsonArray("hotbarItemRules")) {
+                if (rule != null && rule.isJsonPrimitive()) {
+                    rules.add(rule.getAsString().trim());
+                }
+            }
+            settings.hotbarItemRules = List.copyOf(rules);
+        }
     }
 
     private static boolean getBoolean(JsonObject object, String key, boolean defaultValue) {
@@ -297,6 +573,97 @@ public final class ConfigManager {
         }
     }
 
+    private static KeyRow getKeyRow(JsonObject object, String key, KeyRow defaultValue) {
+        if (object == null || !object.has(key)) {
+            return defaultValue;
+        }
+        JsonElement element = object.get(key);
+        if (element == null || !element.isJsonPrimitive()) {
+            return defaultValue;
+        }
+        try {
+            return KeyRow.valueOf(element.getAsString().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            GLights.LOGGER.warn("Ignoring unknown key row '{}' for '{}'", element.getAsString(), key);
+            return defaultValue;
+        }
+    }
+
+    private static int getInt(JsonObject object, String key, int defaultValue, int min, int max) {
+        if (object == null || !object.has(key)) {
+            return defaultValue;
+        }
+        JsonElement element = object.get(key);
+        if (element == null || !element.isJsonPrimitive()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, element.getAsInt()));
+        } catch (NumberFormatException | ClassCastException | IllegalStateException e) {
+            return defaultValue;
+        }
+    }
+
+    // Color forced onto one physical key, or LedFrame.UNSET.
+    public int getKeyOverride(int scanCode) {
+        return LedFrame.inRange(scanCode) ? keyOverrides[scanCode] : LedFrame.UNSET;
+    }
+
+    public void setKeyOverride(int scanCode, int color) {
+        if (!LedFrame.inRange(scanCode)) {
+            return;
+        }
+        int normalized = color == LedFrame.UNSET ? LedFrame.UNSET : color & 0xFFFFFF;
+        if (keyOverrides[scanCode] != normalized) {
+            keyOverrides[scanCode] = normalized;
+            dirty = true;
+        }
+    }
+
+    // Overrides as "key=#RRGGBB" lines for the config screen; keys are layout labels where unambiguous, else scan codes.
+    public List<String> getKeyOverrideEntries() {
+        KeyboardLayout layout = KeyboardLayout.tenkeyless();
+        List<String> entries = new ArrayList<>();
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            if (keyOverrides[code] != LedFrame.UNSET) {
+                String label = layout.labelOf(code);
+                String key = label != null ? label : String.format(Locale.ROOT, "0x%03X", code);
+                entries.add(String.format(Locale.ROOT, "%s=#%06X", key, keyOverrides[code]));
+            }
+        }
+        return entries;
+    }
+
+    public void setKeyOverrideEntries(List<String> entries) {
+        KeyboardLayout layout = KeyboardLayout.tenkeyless();
+        int[] parsed = new int[LedFrame.KEY_SLOTS];
+        Arrays.fill(parsed, LedFrame.UNSET);
+        for (String entry : entries) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                GLights.LOGGER.warn("Ignoring key override '{}', expected key=#RRGGBB", entry);
+                continue;
+            }
+            String key = entry.substring(0, separator).trim();
+            try {
+                int scanCode = layout.scanCodeOf(key);
+                if (scanCode < 0) {
+                    scanCode = Integer.decode(key);
+                }
+                if (!LedFrame.inRange(scanCode)) {
+                    throw new NumberFormatException();
+                }
+                parsed[scanCode] = parseColor(entry.substring(separator + 1).trim()) & 0xFFFFFF;
+            } catch (NumberFormatException exception) {
+                GLights.LOGGER.warn("Ignoring key override '{}', expected key=#RRGGBB", entry);
+            }
+        }
+        if (!Arrays.equals(parsed, keyOverrides)) {
+            System.arraycopy(parsed, 0, keyOverrides, 0, LedFrame.KEY_SLOTS);
+            dirty = true;
+        }
+    }
+
     public boolean isDamageEffectEnabled() {
         return settings.damageEffect;
     }
@@ -394,6 +761,149 @@ public final class ConfigManager {
         setColorForCategory(CATEGORY_WASD, color);
     }
 
+    public int getDefaultColorForCategory(String category) {
+        return defaultColorOf(category);
+    }
+
+    public boolean isItemAwareHotbarEnabled() {
+        return settings.itemAwareHotbar;
+    }
+
+    public void setItemAwareHotbarEnabled(boolean enabled) {
+        if (settings.itemAwareHotbar != enabled) {
+            settings.itemAwareHotbar = enabled;
+            dirty = true;
+        }
+    }
+
+    public List<String> getHotbarItemRules() {
+        return settings.hotbarItemRules;
+    }
+
+    public void setHotbarItemRules(List<String> rules) {
+        List<String> trimmed = new ArrayList<>(rules.size());
+        for (String rule : rules) {
+            if (rule != null && !rule.isBlank()) {
+                trimmed.add(rule.trim());
+            }
+        }
+        if (!settings.hotbarItemRules.equals(trimmed)) {
+            settings.hotbarItemRules = List.copyOf(trimmed);
+            dirty = true;
+        }
+    }
+
+    public boolean isHotbarGaugesEnabled() {
+        return settings.hotbarGauges;
+    }
+
+    public void setHotbarGaugesEnabled(boolean enabled) {
+        if (settings.hotbarGauges != enabled) {
+            settings.hotbarGauges = enabled;
+            dirty = true;
+        }
+    }
+
+    public KeyRow getHealthBarRow() {
+        return settings.healthBarRow;
+    }
+
+    public void setHealthBarRow(KeyRow row) {
+        if (settings.healthBarRow != row) {
+            settings.healthBarRow = row;
+            dirty = true;
+        }
+    }
+
+    public KeyRow getFoodBarRow() {
+        return settings.foodBarRow;
+    }
+
+    public void setFoodBarRow(KeyRow row) {
+        if (settings.foodBarRow != row) {
+            settings.foodBarRow = row;
+            dirty = true;
+        }
+    }
+
+    public KeyRow getAirBarRow() {
+        return settings.airBarRow;
+    }
+
+    public void setAirBarRow(KeyRow row) {
+        if (settings.airBarRow != row) {
+            settings.airBarRow = row;
+            dirty = true;
+        }
+    }
+
+    public KeyRow getXpBarRow() {
+        return settings.xpBarRow;
+    }
+
+    public void setXpBarRow(KeyRow row) {
+        if (settings.xpBarRow != row) {
+            settings.xpBarRow = row;
+            dirty = true;
+        }
+    }
+
+    public boolean isMobProximityEnabled() {
+        return settings.mobProximity;
+    }
+
+    public void setMobProximityEnabled(boolean enabled) {
+        if (settings.mobProximity != enabled) {
+            settings.mobProximity = enabled;
+            dirty = true;
+        }
+    }
+
+    public int getMobProximityRadius() {
+        return settings.mobProximityRadius;
+    }
+
+    public void setMobProximityRadius(int radius) {
+        int clamped = Math.max(MIN_MOB_PROXIMITY_RADIUS, Math.min(MAX_MOB_PROXIMITY_RADIUS, radius));
+        if (settings.mobProximityRadius != clamped) {
+            settings.mobProximityRadius = clamped;
+            dirty = true;
+        }
+    }
+
+    public boolean isFlashEventsEnabled() {
+        return settings.flashEvents;
+    }
+
+    public void setFlashEventsEnabled(boolean enabled) {
+        if (settings.flashEvents != enabled) {
+            settings.flashEvents = enabled;
+            dirty = true;
+        }
+    }
+
+    public boolean isSoundReactiveEnabled() {
+        return settings.soundReactive;
+    }
+
+    public void setSoundReactiveEnabled(boolean enabled) {
+        if (settings.soundReactive != enabled) {
+            settings.soundReactive = enabled;
+            dirty = true;
+        }
+    }
+
+    public boolean isAmbientThemeEnabled() {
+        return settings.ambientTheme;
+    }
+
+    public void setAmbientThemeEnabled(boolean enabled) {
+        if (settings.ambientTheme != enabled) {
+            settings.ambientTheme = enabled;
+            dirty = true;
+        }
+    }
+
     public int getDefaultWasdColor() {
         return DEFAULT_WASD_COLOR;
     }
@@ -443,6 +953,76 @@ public final class ConfigManager {
         }
     }
 
+    public boolean isOutOfProcessEnabled() {
+        return settings.outOfProcess;
+    }
+
+    public void setOutOfProcessEnabled(boolean enabled) {
+        if (settings.outOfProcess != enabled) {
+            settings.outOfProcess = enabled;
+            dirty = true;
+        }
+    }
+
+    // Native calls per commit for non-critical keys; 0 means no limit.
+    public int getNativeCallBudget() {
+        return settings.nativeCallBudget;
+    }
+
+    public void setNativeCallBudget(int budget) {
+        int clamped = Math.max(0, Math.min(MAX_NATIVE_CALL_BUDGET, budget));
+        if (settings.nativeCallBudget != clamped) {
+            settings.nativeCallBudget = clamped;
+            dirty = true;
+        }
+    }
+
+    public boolean isIdlePowerSaveEnabled() {
+        return settings.idlePowerSave;
+    }
+
+    public void setIdlePowerSaveEnabled(boolean enabled) {
+        if (settings.idlePowerSave != enabled) {
+            settings.idlePowerSave = enabled;
+            dirty = true;
+        }
+    }
+
+    // Seconds without input before the lighting goes idle; 0 only idles on pause, menus and minimizing.
+    public int getIdleTimeoutSeconds() {
+        return settings.idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(int seconds) {
+        int clamped = Math.max(0, Math.min(MAX_IDLE_TIMEOUT_SECONDS, seconds));
+        if (settings.idleTimeoutSeconds != clamped) {
+            settings.idleTimeoutSeconds = clamped;
+            dirty = true;
+        }
+    }
+
+    public boolean isIdlePulseEnabled() {
+        return settings.idlePulse;
+    }
+
+    public void setIdlePulseEnabled(boolean enabled) {
+        if (settings.idlePulse != enabled) {
+            settings.idlePulse = enabled;
+            dirty = true;
+        }
+    }
+
+    public boolean isFrameRecordingEnabled() {
+        return settings.recordFrames;
+    }
+
+    public void setFrameRecordingEnabled(boolean enabled) {
+        if (settings.recordFrames != enabled) {
+            settings.recordFrames = enabled;
+            dirty = true;
+        }
+    }
+
     public boolean isModEnabled() {
         return settings.modEnabled;
     }
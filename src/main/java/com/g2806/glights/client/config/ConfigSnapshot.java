@@ -0,0 +1,194 @@
+package com.g2806.glights.client.config;
+
+import com.g2806.glights.client.led.KeyRow;
+import com.g2806.glights.client.led.LedFrame;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the configuration as of one {@link ConfigManager#publish()}. Lighting code reads a snapshot
+ * once and keeps using it, so a Mod Menu save that touches several settings is seen all at once or not at all.
+ * Colors live in a flat array indexed by category id; ids never change for the life of the ConfigManager, so they
+ * can be resolved once and reused across snapshots.
+ */
+public final class ConfigSnapshot {
+    private final int version;
+    private final Map<String, Integer> categoryIds;
+    private final int[] colors;
+    private final int[] keyOverrides;
+    private final int[] keyOverrideCodes;
+    private final ConfigManager.Settings settings;
+
+    ConfigSnapshot(int version, Map<String, Integer> categoryIds, int[] colors, int[] keyOverrides, int[] keyOverrideCodes,
+            ConfigManager.Settings settings) {
+        this.version = version;
+        this.categoryIds = categoryIds;
+        this.colors = colors;
+        this.keyOverrides = keyOverrides;
+        this.keyOverrideCodes = keyOverrideCodes;
+        this.settings = settings;
+    }
+
+    // Bumped on every publish, so readers can cache anything derived from a snapshot.
+    public int getVersion() {
+        return version;
+    }
+
+    // Id of a category for getColor(int), or -1 when it had no color when this snapshot was published.
+    public int categoryId(String category) {
+        Integer id = categoryIds.get(category);
+        return id == null ? -1 : id;
+    }
+
+    public int getColor(int categoryId) {
+        return categoryId >= 0 && categoryId < colors.length ? colors[categoryId] : ConfigManager.defaultColorOf(null);
+    }
+
+    public int getColorForCategory(String category) {
+        int id = categoryId(category);
+        return id >= 0 ? colors[id] : ConfigManager.defaultColorOf(category);
+    }
+
+    // Color forced onto a physical key by scan code, or LedFrame.UNSET.
+    public int getKeyOverride(int scanCode) {
+        return LedFrame.inRange(scanCode) ? keyOverrides[scanCode] : LedFrame.UNSET;
+    }
+
+    // Overridden scan codes in ascending order, so the base frame build visits only those.
+    public int getKeyOverrideCount() {
+        return keyOverrideCodes.length;
+    }
+
+    public int getKeyOverrideCode(int index) {
+        return keyOverrideCodes[index];
+    }
+
+    public int getHighlightColor() {
+        return colors[ConfigManager.CATEGORY_ID_INVENTORY_SELECTED];
+    }
+
+    public int getWasdColor() {
+        return colors[ConfigManager.CATEGORY_ID_WASD];
+    }
+
+    public int getBackgroundFillColor() {
+        return colors[ConfigManager.CATEGORY_ID_BACKGROUND];
+    }
+
+    public boolean isDamageEffectEnabled() {
+        return settings.damageEffect;
+    }
+
+    public boolean isUnderwaterEffectEnabled() {
+        return settings.underwaterEffect;
+    }
+
+    public boolean isPoisonEffectEnabled() {
+        return settings.poisonEffect;
+    }
+
+    public boolean isFrozenEffectEnabled() {
+        return settings.frozenEffect;
+    }
+
+    public boolean isNetherPortalEffectEnabled() {
+        return settings.netherPortalEffect;
+    }
+
+    public boolean isWitherEffectEnabled() {
+        return settings.witherEffect;
+    }
+
+    public boolean isLowHealthBlinkEnabled() {
+        return settings.lowHealthBlink;
+    }
+
+    public boolean isItemAwareHotbarEnabled() {
+        return settings.itemAwareHotbar;
+    }
+
+    public List<String> getHotbarItemRules() {
+        return settings.hotbarItemRules;
+    }
+
+    public boolean isHotbarGaugesEnabled() {
+        return settings.hotbarGauges;
+    }
+
+    public KeyRow getHealthBarRow() {
+        return settings.healthBarRow;
+    }
+
+    public KeyRow getFoodBarRow() {
+        return settings.foodBarRow;
+    }
+
+    public KeyRow getAirBarRow() {
+        return settings.airBarRow;
+    }
+
+    public KeyRow getXpBarRow() {
+        return settings.xpBarRow;
+    }
+
+    public boolean isMobProximityEnabled() {
+        return settings.mobProximity;
+    }
+
+    public int getMobProximityRadius() {
+        return settings.mobProximityRadius;
+    }
+
+    public boolean isFlashEventsEnabled() {
+        return settings.flashEvents;
+    }
+
+    public boolean isSoundReactiveEnabled() {
+        return settings.soundReactive;
+    }
+
+    public boolean isAmbientThemeEnabled() {
+        return settings.ambientTheme;
+    }
+
+    public boolean isHighlightSelectedSlot() {
+        return settings.highlightSelectedSlot;
+    }
+
+    public boolean isBackgroundFillEnabled() {
+        return settings.backgroundFillEnabled;
+    }
+
+    public boolean isMouseLightingEnabled() {
+        return settings.mouseLightingEnabled;
+    }
+
+    public boolean isOutOfProcessEnabled() {
+        return settings.outOfProcess;
+    }
+
+    public int getNativeCallBudget() {
+        return settings.nativeCallBudget;
+    }
+
+    public boolean isIdlePowerSaveEnabled() {
+        return settings.idlePowerSave;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return settings.idleTimeoutSeconds;
+    }
+
+    public boolean isIdlePulseEnabled() {
+        return settings.idlePulse;
+    }
+
+    public boolean isFrameRecordingEnabled() {
+        return settings.recordFrames;
+    }
+
+    public boolean isModEnabled() {
+        return settings.modEnabled;
+    }
+}
@@ -0,0 +1,262 @@
+package com.g2806.glights.client.config;
+
+import com.g2806.glights.GLights;
+import com.g2806.glights.client.GLightsClient;
+import com.g2806.glights.client.LightHandler;
+import com.g2806.glights.client.led.KeyboardLayout;
+import com.g2806.glights.client.led.LedFrame;
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.blaze3d.systems.RenderSystem;
+import me.shedaniel.clothconfig2.api.AbstractConfigListEntry;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.components.events.GuiEventListener;
+import net.minecraft.client.gui.narration.NarratableEntry;
+import net.minecraft.client.input.MouseButtonEvent;
+import net.minecraft.client.renderer.RenderPipelines;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Draws the frame the keyboard is showing as a virtual keyboard. The keyboard lives in a small texture at two pixels
+ * per quarter key; each render compares every key against what the texture already holds and uploads just the keys
+ * that changed. Clicking a key selects it and clicking a swatch overrides its color, previewed on the device
+ * straight away through the normal frame commit and stored as a key override when the screen is saved.
+ */
+final class KeyboardPreviewEntry extends AbstractConfigListEntry<Void> {
+    private static final ResourceLocation TEXTURE = ResourceLocation.fromNamespaceAndPath(GLights.MOD_ID, "keyboard_preview");
+    private static final int QUARTER_PX = 2;
+    private static final int ROW_PX = 8;
+    private static final int SCALE = 2;
+    private static final int GAP_COLOR = 0xFF101010;
+    private static final int SWATCH_PX = 12;
+    private static final int PADDING = 4;
+    // The last swatch clears the override.
+    private static final int[] SWATCHES = {
+            0xFF0000, 0xFF7F00, 0xFFDC00, 0x7FFF00, 0x00FF00, 0x00DCFF,
+            0x0080FF, 0x0000FF, 0x8000FF, 0xFF00FF, 0xFFFFFF, 0x000000, LedFrame.UNSET
+    };
+
+    private final ConfigManager config;
+    private final int[] keyCodes;
+    private final String[] keyLabels;
+    private final int[] keyX;
+    private final int[] keyY;
+    private final int[] keyWidth;
+    private final int textureWidth;
+    private final int textureHeight;
+    // What the texture holds per key; -2 forces a repaint.
+    private final int[] drawnColors;
+    private final boolean[] edited;
+    private final int[] editedColors;
+    private DynamicTexture texture;
+    private int selected = -1;
+    private int left;
+    private int top;
+
+    KeyboardPreviewEntry(Component fieldName, ConfigManager config) {
+        super(fieldName, false);
+        this.config = config;
+
+        KeyboardLayout layout = KeyboardLayout.tenkeyless();
+        List<KeyboardLayout.Key> keys = layout.getKeys();
+        int count = keys.size();
+        textureWidth = layout.getWidth() * QUARTER_PX;
+        textureHeight = layout.getRows().size() * ROW_PX;
+        keyCodes = new int[count];
+        keyLabels = new String[count];
+        keyX = new int[count];
+        keyY = new int[count];
+        keyWidth = new int[count];
+        for (int i = 0; i < count; i++) {
+            KeyboardLayout.Key key = keys.get(i);
+            keyCodes[i] = key.getScanCode();
+            keyLabels[i] = key.getLabel();
+            keyX[i] = key.getColumn() * QUARTER_PX;
+            keyY[i] = key.getRow() * ROW_PX;
+            keyWidth[i] = key.getQuarterWidth() * QUARTER_PX;
+        }
+        drawnColors = new int[count];
+        edited = new boolean[count];
+        editedColors = new int[count];
+    }
+
+    @Override
+    public Void getValue() {
+        return null;
+    }
+
+    @Override
+    public Optional<Void> getDefaultValue() {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isEdited() {
+        if (super.isEdited()) {
+            return true;
+        }
+        for (boolean keyEdited : edited) {
+            if (keyEdited) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs after the override list entry, so keys edited here win over what that list holds.
+    @Override
+    public void save() {
+        for (int i = 0; i < keyCodes.length; i++) {
+            if (edited[i]) {
+                config.setKeyOverride(keyCodes[i], editedColors[i]);
+                edited[i] = false;
+            }
+        }
+    }
+
+    @Override
+    public int getItemHeight() {
+        return textureHeight * SCALE + PADDING + SWATCH_PX + PADDING + 10 + PADDING;
+    }
+
+    @Override
+    public void render(GuiGraphics graphics, int index, int y, int x, int entryWidth, int entryHeight, int mouseX, int mouseY,
+            boolean isHovered, float delta) {
+        LightHandler handler = GLightsClient.HANDLER;
+        LedFrame frame = handler != null && handler.isActive() ? handler.getFrame() : null;
+        if (frame != null) {
+            handler.touchPreview();
+        }
+        updateTexture(frame);
+
+        left = x + (entryWidth - textureWidth * SCALE) / 2;
+        top = y;
+        graphics.blit(RenderPipelines.GUI_TEXTURED, TEXTURE, left, top, 0.0F, 0.0F, textureWidth * SCALE, textureHeight * SCALE,
+                textureWidth, textureHeight, textureWidth, textureHeight);
+        if (selected >= 0) {
+            outline(graphics, left + keyX[selected] * SCALE, top + keyY[selected] * SCALE, (keyWidth[selected] - 1) * SCALE,
+                    (ROW_PX - 1) * SCALE, 0xFFFFFFFF);
+        }
+
+        int swatchTop = swatchTop();
+        for (int i = 0; i < SWATCHES.length; i++) {
+            int swatchLeft = swatchLeft(i);
+            if (SWATCHES[i] == LedFrame.UNSET) {
+                graphics.fill(swatchLeft, swatchTop, swatchLeft + SWATCH_PX, swatchTop + SWATCH_PX, 0xFF404040);
+                graphics.drawString(Minecraft.getInstance().font, "x", swatchLeft + 3, swatchTop + 2, 0xFFFFFFFF);
+            } else {
+                graphics.fill(swatchLeft, swatchTop, swatchLeft + SWATCH_PX, swatchTop + SWATCH_PX, 0xFF000000 | SWATCHES[i]);
+            }
+            outline(graphics, swatchLeft, swatchTop, SWATCH_PX, SWATCH_PX, 0xFF808080);
+        }
+
+        Component label = selected < 0
+                ? Component.translatable("config.glights.keys.preview.hint")
+                : Component.translatable("config.glights.keys.preview.selected", keyLabels[selected]);
+        graphics.drawString(Minecraft.getInstance().font, label, left, swatchTop + SWATCH_PX + PADDING, 0xFFA0A0A0);
+    }
+
+    @Override
+    public boolean mouseClicked(MouseButtonEvent event, boolean doubleClick) {
+        if (event.button() != 0) {
+            return false;
+        }
+        double textureX = (event.x() - left) / SCALE;
+        double textureY = (event.y() - top) / SCALE;
+        for (int i = 0; i < keyCodes.length; i++) {
+            if (textureX >= keyX[i] && textureX < keyX[i] + keyWidth[i] && textureY >= keyY[i] && textureY < keyY[i] + ROW_PX) {
+                selected = i;
+                return true;
+            }
+        }
+        int swatchTop = swatchTop();
+        for (int i = 0; i < SWATCHES.length; i++) {
+            int swatchLeft = swatchLeft(i);
+            if (event.x() >= swatchLeft && event.x() < swatchLeft + SWATCH_PX && event.y() >= swatchTop && event.y() < swatchTop + SWATCH_PX) {
+                applySwatch(SWATCHES[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<? extends GuiEventListener> children() {
+        return List.of();
+    }
+
+    @Override
+    public List<? extends NarratableEntry> narratables() {
+        return List.of();
+    }
+
+    private void applySwatch(int color) {
+        if (selected < 0) {
+            return;
+        }
+        edited[selected] = true;
+        editedColors[selected] = color;
+        LightHandler handler = GLightsClient.HANDLER;
+        if (handler != null) {
+            handler.previewKeyColor(keyCodes[selected], color);
+        }
+    }
+
+    private void updateTexture(LedFrame frame) {
+        if (texture == null) {
+            NativeImage image = new NativeImage(textureWidth, textureHeight, true);
+            image.fillRect(0, 0, textureWidth, textureHeight, GAP_COLOR);
+            texture = new DynamicTexture(() -> GLights.MOD_ID + " keyboard preview", image);
+            Minecraft.getInstance().getTextureManager().register(TEXTURE, texture);
+            Arrays.fill(drawnColors, -2);
+        }
+        NativeImage image = texture.getPixels();
+        for (int i = 0; i < keyCodes.length; i++) {
+            int color = shownColor(frame, i);
+            if (color == drawnColors[i]) {
+                continue;
+            }
+            drawnColors[i] = color;
+            // One pixel of gap on the right and bottom keeps neighbouring keys apart.
+            image.fillRect(keyX[i], keyY[i], keyWidth[i] - 1, ROW_PX - 1, 0xFF000000 | color);
+            RenderSystem.getDevice().createCommandEncoder().writeToTexture(texture.getTexture(), image, 0, 0, keyX[i], keyY[i],
+                    keyWidth[i] - 1, ROW_PX - 1, keyX[i], keyY[i]);
+        }
+    }
+
+    private int shownColor(LedFrame frame, int index) {
+        if (edited[index] && editedColors[index] != LedFrame.UNSET) {
+            return editedColors[index];
+        }
+        if (frame == null) {
+            return 0x000000;
+        }
+        int code = keyCodes[index];
+        int color = frame.getScanCode(code);
+        if (color == LedFrame.UNSET) {
+            color = frame.getKeyName(code);
+        }
+        return color == LedFrame.UNSET ? frame.getBackground() : color;
+    }
+
+    private int swatchTop() {
+        return top + textureHeight * SCALE + PADDING;
+    }
+
+    private int swatchLeft(int index) {
+        return left + index * (SWATCH_PX + 2);
+    }
+
+    private static void outline(GuiGraphics graphics, int x, int y, int width, int height, int color) {
+        graphics.fill(x, y, x + width, y + 1, color);
+        graphics.fill(x, y + height - 1, x + width, y + height, color);
+        graphics.fill(x, y, x + 1, y + height, color);
+        graphics.fill(x + width - 1, y, x + width, y + height, color);
+    }
+}
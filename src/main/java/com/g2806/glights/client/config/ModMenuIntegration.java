@@ -1,6 +1,7 @@
 package com.g2806.glights.client.config;
 
 import com.g2806.glights.client.GLightsClient;
+import com.g2806.glights.client.led.KeyRow;
 import com.terraformersmc.modmenu.api.ConfigScreenFactory;
 import com.terraformersmc.modmenu.api.ModMenuApi;
 import me.shedaniel.clothconfig2.api.ConfigBuilder;
@@ -9,6 +10,9 @@ import me.shedaniel.clothconfig2.api.ConfigEntryBuilder;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 
+import java.util.List;
+import java.util.Locale;
+
 public final class ModMenuIntegration implements ModMenuApi {
     @Override
     public ConfigScreenFactory<?> getModConfigScreenFactory() {
@@ -33,6 +37,42 @@ public final class ModMenuIntegration implements ModMenuApi {
         .setTooltip(Component.translatable("config.glights.general.enabled.tooltip"))
         .setSaveConsumer(config::setModEnabled)
         .build());
+    general.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.general.out_of_process"), config.isOutOfProcessEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.general.out_of_process.tooltip"))
+        .setSaveConsumer(config::setOutOfProcessEnabled)
+        .build());
+    general.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.general.record_frames"), config.isFrameRecordingEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.general.record_frames.tooltip"))
+        .setSaveConsumer(config::setFrameRecordingEnabled)
+        .build());
+    general.addEntry(entryBuilder
+        .startIntSlider(Component.translatable("config.glights.general.native_call_budget"), config.getNativeCallBudget(), 0, ConfigManager.MAX_NATIVE_CALL_BUDGET)
+        .setDefaultValue(ConfigManager.DEFAULT_NATIVE_CALL_BUDGET)
+        .setTooltip(Component.translatable("config.glights.general.native_call_budget.tooltip"))
+        .setSaveConsumer(config::setNativeCallBudget)
+        .build());
+    general.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.general.idle_power_save"), config.isIdlePowerSaveEnabled())
+        .setDefaultValue(true)
+        .setTooltip(Component.translatable("config.glights.general.idle_power_save.tooltip"))
+        .setSaveConsumer(config::setIdlePowerSaveEnabled)
+        .build());
+    general.addEntry(entryBuilder
+        .startIntSlider(Component.translatable("config.glights.general.idle_timeout"), config.getIdleTimeoutSeconds(), 0, ConfigManager.MAX_IDLE_TIMEOUT_SECONDS)
+        .setDefaultValue(ConfigManager.DEFAULT_IDLE_TIMEOUT_SECONDS)
+        .setTooltip(Component.translatable("config.glights.general.idle_timeout.tooltip"))
+        .setSaveConsumer(config::setIdleTimeoutSeconds)
+        .build());
+    general.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.general.idle_pulse"), config.isIdlePulseEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.general.idle_pulse.tooltip"))
+        .setSaveConsumer(config::setIdlePulseEnabled)
+        .build());
 
     ConfigCategory effects = builder.getOrCreateCategory(Component.translatable("config.glights.category.effects"));
     effects.addEntry(entryBuilder
@@ -77,6 +117,50 @@ public final class ModMenuIntegration implements ModMenuApi {
         .setTooltip(Component.translatable("config.glights.effect.nether_portal.tooltip"))
         .setSaveConsumer(config::setNetherPortalEffectEnabled)
         .build());
+    effects.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.effect.mob_proximity"), config.isMobProximityEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.effect.mob_proximity.tooltip"))
+        .setSaveConsumer(config::setMobProximityEnabled)
+        .build());
+    effects.addEntry(entryBuilder
+        .startIntSlider(Component.translatable("config.glights.effect.mob_proximity_radius"), config.getMobProximityRadius(),
+            ConfigManager.MIN_MOB_PROXIMITY_RADIUS, ConfigManager.MAX_MOB_PROXIMITY_RADIUS)
+        .setDefaultValue(ConfigManager.DEFAULT_MOB_PROXIMITY_RADIUS)
+        .setTooltip(Component.translatable("config.glights.effect.mob_proximity_radius.tooltip"))
+        .setSaveConsumer(config::setMobProximityRadius)
+        .build());
+    effects.addEntry(entryBuilder
+        .startColorField(Component.translatable(ConfigManager.CATEGORY_MOB_PROXIMITY), config.getColorForCategory(ConfigManager.CATEGORY_MOB_PROXIMITY))
+        .setDefaultValue(config.getDefaultColorForCategory(ConfigManager.CATEGORY_MOB_PROXIMITY))
+        .setSaveConsumer(color -> config.setColorForCategory(ConfigManager.CATEGORY_MOB_PROXIMITY, color & 0xFFFFFF))
+        .build());
+    effects.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.effect.flash_events"), config.isFlashEventsEnabled())
+        .setDefaultValue(true)
+        .setTooltip(Component.translatable("config.glights.effect.flash_events.tooltip"))
+        .setSaveConsumer(config::setFlashEventsEnabled)
+        .build());
+    for (String category : new String[] {ConfigManager.CATEGORY_EXPLOSION_FLASH, ConfigManager.CATEGORY_LIGHTNING_FLASH}) {
+        effects.addEntry(entryBuilder
+            .startColorField(Component.translatable(category), config.getColorForCategory(category))
+            .setDefaultValue(config.getDefaultColorForCategory(category))
+            .setSaveConsumer(color -> config.setColorForCategory(category, color & 0xFFFFFF))
+            .build());
+    }
+    effects.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.effect.sound_reactive"), config.isSoundReactiveEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.effect.sound_reactive.tooltip"))
+        .setSaveConsumer(config::setSoundReactiveEnabled)
+        .build());
+    for (String category : new String[] {ConfigManager.CATEGORY_SOUND_HIT, ConfigManager.CATEGORY_SOUND_MUSIC}) {
+        effects.addEntry(entryBuilder
+            .startColorField(Component.translatable(category), config.getColorForCategory(category))
+            .setDefaultValue(config.getDefaultColorForCategory(category))
+            .setSaveConsumer(color -> config.setColorForCategory(category, color & 0xFFFFFF))
+            .build());
+    }
 
     ConfigCategory hotbar = builder.getOrCreateCategory(Component.translatable("config.glights.category.hotbar"));
     hotbar.addEntry(entryBuilder
@@ -91,6 +175,82 @@ public final class ModMenuIntegration implements ModMenuApi {
         .setTooltip(Component.translatable("config.glights.hotbar.highlight_color.tooltip"))
         .setSaveConsumer(color -> config.setHighlightColor(color & 0xFFFFFF))
         .build());
+    hotbar.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.hotbar.item_colors"), config.isItemAwareHotbarEnabled())
+        .setDefaultValue(true)
+        .setTooltip(Component.translatable("config.glights.hotbar.item_colors.tooltip"))
+        .setSaveConsumer(config::setItemAwareHotbarEnabled)
+        .build());
+    for (String category : new String[] {ConfigManager.CATEGORY_HOTBAR_WEAPON, ConfigManager.CATEGORY_HOTBAR_TOOL,
+            ConfigManager.CATEGORY_HOTBAR_FOOD, ConfigManager.CATEGORY_HOTBAR_BLOCK, ConfigManager.CATEGORY_HOTBAR_EMPTY}) {
+        hotbar.addEntry(entryBuilder
+            .startColorField(Component.translatable(category), config.getColorForCategory(category))
+            .setDefaultValue(config.getDefaultColorForCategory(category))
+            .setSaveConsumer(color -> config.setColorForCategory(category, color & 0xFFFFFF))
+            .build());
+    }
+    hotbar.addEntry(entryBuilder
+        .startStrList(Component.translatable("config.glights.hotbar.item_rules"), config.getHotbarItemRules())
+        .setDefaultValue(List.of())
+        .setTooltip(Component.translatable("config.glights.hotbar.item_rules.tooltip"))
+        .setSaveConsumer(config::setHotbarItemRules)
+        .build());
+    hotbar.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.hotbar.gauges"), config.isHotbarGaugesEnabled())
+        .setDefaultValue(true)
+        .setTooltip(Component.translatable("config.glights.hotbar.gauges.tooltip"))
+        .setSaveConsumer(config::setHotbarGaugesEnabled)
+        .build());
+
+    ConfigCategory bars = builder.getOrCreateCategory(Component.translatable("config.glights.category.bars"));
+    bars.addEntry(entryBuilder
+        .startEnumSelector(Component.translatable("config.glights.bars.health"), KeyRow.class, config.getHealthBarRow())
+        .setDefaultValue(KeyRow.NONE)
+        .setEnumNameProvider(ModMenuIntegration::rowName)
+        .setTooltip(Component.translatable("config.glights.bars.health.tooltip"))
+        .setSaveConsumer(config::setHealthBarRow)
+        .build());
+    bars.addEntry(entryBuilder
+        .startColorField(Component.translatable(ConfigManager.CATEGORY_BAR_HEALTH), config.getColorForCategory(ConfigManager.CATEGORY_BAR_HEALTH))
+        .setDefaultValue(config.getDefaultColorForCategory(ConfigManager.CATEGORY_BAR_HEALTH))
+        .setSaveConsumer(color -> config.setColorForCategory(ConfigManager.CATEGORY_BAR_HEALTH, color & 0xFFFFFF))
+        .build());
+    bars.addEntry(entryBuilder
+        .startEnumSelector(Component.translatable("config.glights.bars.food"), KeyRow.class, config.getFoodBarRow())
+        .setDefaultValue(KeyRow.NONE)
+        .setEnumNameProvider(ModMenuIntegration::rowName)
+        .setTooltip(Component.translatable("config.glights.bars.food.tooltip"))
+        .setSaveConsumer(config::setFoodBarRow)
+        .build());
+    bars.addEntry(entryBuilder
+        .startColorField(Component.translatable(ConfigManager.CATEGORY_BAR_FOOD), config.getColorForCategory(ConfigManager.CATEGORY_BAR_FOOD))
+        .setDefaultValue(config.getDefaultColorForCategory(ConfigManager.CATEGORY_BAR_FOOD))
+        .setSaveConsumer(color -> config.setColorForCategory(ConfigManager.CATEGORY_BAR_FOOD, color & 0xFFFFFF))
+        .build());
+    bars.addEntry(entryBuilder
+        .startEnumSelector(Component.translatable("config.glights.bars.air"), KeyRow.class, config.getAirBarRow())
+        .setDefaultValue(KeyRow.NONE)
+        .setEnumNameProvider(ModMenuIntegration::rowName)
+        .setTooltip(Component.translatable("config.glights.bars.air.tooltip"))
+        .setSaveConsumer(config::setAirBarRow)
+        .build());
+    bars.addEntry(entryBuilder
+        .startColorField(Component.translatable(ConfigManager.CATEGORY_BAR_AIR), config.getColorForCategory(ConfigManager.CATEGORY_BAR_AIR))
+        .setDefaultValue(config.getDefaultColorForCategory(ConfigManager.CATEGORY_BAR_AIR))
+        .setSaveConsumer(color -> config.setColorForCategory(ConfigManager.CATEGORY_BAR_AIR, color & 0xFFFFFF))
+        .build());
+    bars.addEntry(entryBuilder
+        .startEnumSelector(Component.translatable("config.glights.bars.xp"), KeyRow.class, config.getXpBarRow())
+        .setDefaultValue(KeyRow.NONE)
+        .setEnumNameProvider(ModMenuIntegration::rowName)
+        .setTooltip(Component.translatable("config.glights.bars.xp.tooltip"))
+        .setSaveConsumer(config::setXpBarRow)
+        .build());
+    bars.addEntry(entryBuilder
+        .startColorField(Component.translatable(ConfigManager.CATEGORY_BAR_XP), config.getColorForCategory(ConfigManager.CATEGORY_BAR_XP))
+        .setDefaultValue(config.getDefaultColorForCategory(ConfigManager.CATEGORY_BAR_XP))
+        .setSaveConsumer(color -> config.setColorForCategory(ConfigManager.CATEGORY_BAR_XP, color & 0xFFFFFF))
+        .build());
 
     ConfigCategory keyColors = builder.getOrCreateCategory(Component.translatable("config.glights.category.keys"));
     keyColors.addEntry(entryBuilder
@@ -111,20 +271,40 @@ public final class ModMenuIntegration implements ModMenuApi {
         .setTooltip(Component.translatable("config.glights.keys.background_fill_color.tooltip"))
         .setSaveConsumer(color -> config.setBackgroundFillColor(color & 0xFFFFFF))
         .build());
+    keyColors.addEntry(entryBuilder
+        .startBooleanToggle(Component.translatable("config.glights.keys.ambient_theme"), config.isAmbientThemeEnabled())
+        .setDefaultValue(false)
+        .setTooltip(Component.translatable("config.glights.keys.ambient_theme.tooltip"))
+        .setSaveConsumer(config::setAmbientThemeEnabled)
+        .build());
     keyColors.addEntry(entryBuilder
         .startColorField(Component.translatable("config.glights.keys.wasd_color"), config.getWasdColor())
         .setDefaultValue(config.getDefaultWasdColor())
         .setTooltip(Component.translatable("config.glights.keys.wasd_color.tooltip"))
         .setSaveConsumer(color -> config.setWasdColor(color & 0xFFFFFF))
         .build());
+    keyColors.addEntry(entryBuilder
+        .startStrList(Component.translatable("config.glights.keys.overrides"), config.getKeyOverrideEntries())
+        .setDefaultValue(List.of())
+        .setTooltip(Component.translatable("config.glights.keys.overrides.tooltip"))
+        .setSaveConsumer(config::setKeyOverrideEntries)
+        .build());
+    keyColors.addEntry(new KeyboardPreviewEntry(Component.translatable("config.glights.keys.preview"), config));
 
         builder.setSavingRunnable(() -> {
+            config.publish();
             config.saveIfDirty();
             if (GLightsClient.EVENTS != null) {
                 GLightsClient.EVENTS.onConfigChanged();
+            } else {
+                GLightsClient.retryLedConnection();
             }
         });
 
         return builder.build();
     }
+
+    private static Component rowName(Enum<?> row) {
+        return Component.translatable("config.glights.bars.row." + row.name().toLowerCase(Locale.ROOT));
+    }
 }
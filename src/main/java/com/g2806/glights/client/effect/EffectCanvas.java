@@ -0,0 +1,18 @@
+package com.g2806.glights.client.effect;
+
+// What the effect engine draws on; the live implementation is LightHandler's pending frame.
+public interface EffectCanvas {
+    boolean isActive();
+
+    void setSolidColor(int color);
+
+    void setSolidColorOnScanCode(int scanCode, int color);
+
+    void stopEffects();
+
+    // One of the LedFrame.PRIORITY_* levels, applied to the key writes that follow.
+    void setDrawPriority(int priority);
+
+    // Scan codes that currently carry a bound-key color, in ascending order.
+    int[] getLitScanCodes();
+}
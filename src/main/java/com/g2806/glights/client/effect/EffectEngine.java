@@ -0,0 +1,382 @@
+package com.g2806.glights.client.effect;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.led.LedFrame;
+
+import java.util.Random;
+
+/**
+ * The special-effect state machine: picks the effect the player state calls for and animates it one tick at a
+ * time onto an {@link EffectCanvas}. It has no game dependencies, so the simulator and the golden-frame checks
+ * drive exactly the code the client runs.
+ */
+public final class EffectEngine {
+    public enum SpecialEffect {
+        NONE,
+        DAMAGE_FLASH,
+        LOW_HEALTH,
+        UNDERWATER,
+        POISON,
+        WITHER,
+        FROZEN,
+        NETHER_PORTAL
+    }
+
+    private static final int EFFECT_TICK_MASK = (1 << 14) - 1;
+
+    private final EffectCanvas canvas;
+    private final ConfigManager config;
+    private final Runnable restoreBase;
+    private final Random effectRandom;
+
+    private SpecialEffect activeEffect = SpecialEffect.NONE;
+    private int damageFlashTicks;
+    private int effectTicks;
+    private int[] effectScanCodes = new int[0];
+
+    public EffectEngine(EffectCanvas canvas, ConfigManager config, Runnable restoreBase, Random effectRandom) {
+        this.canvas = canvas;
+        this.config = config;
+        this.restoreBase = restoreBase;
+        this.effectRandom = effectRandom;
+    }
+
+    public SpecialEffect getActiveEffect() {
+        return activeEffect;
+    }
+
+    public boolean isEffectActive() {
+        return activeEffect != SpecialEffect.NONE;
+    }
+
+    public void update(PlayerState player) {
+        ConfigSnapshot settings = config.current();
+        boolean poisonActive = settings.isPoisonEffectEnabled() && player.isPoisoned();
+        boolean witherActive = settings.isWitherEffectEnabled() && player.isWithered();
+        boolean lowHealthActive = settings.isLowHealthBlinkEnabled() && isLowHealth(player);
+
+        if (settings.isDamageEffectEnabled() && !poisonActive && !witherActive && !lowHealthActive && player.getHurtTime() > 0) {
+            damageFlashTicks = 12;
+        } else if (!settings.isDamageEffectEnabled() || poisonActive || witherActive || lowHealthActive) {
+            damageFlashTicks = 0;
+        } else if (damageFlashTicks > 0) {
+            damageFlashTicks--;
+        }
+
+        SpecialEffect desired = determineDesiredEffect(settings, player, poisonActive, witherActive, lowHealthActive);
+        if (desired != activeEffect) {
+            applySpecialEffect(desired, true);
+        }
+        if (activeEffect != SpecialEffect.NONE) {
+            tickActiveEffect();
+        }
+    }
+
+    // Redraws after the output was restarted: the running effect starts over, otherwise the base comes back.
+    public void reapply() {
+        effectTicks = 0;
+        effectScanCodes = new int[0];
+        if (activeEffect != SpecialEffect.NONE) {
+            applySpecialEffect(activeEffect, false);
+        } else {
+            restoreBase.run();
+        }
+    }
+
+    public void clear(boolean restoreBaseLighting) {
+        damageFlashTicks = 0;
+        if (activeEffect != SpecialEffect.NONE) {
+            applySpecialEffect(SpecialEffect.NONE, restoreBaseLighting);
+        } else if (restoreBaseLighting) {
+            canvas.stopEffects();
+            restoreBase.run();
+        }
+        activeEffect = SpecialEffect.NONE;
+        effectTicks = 0;
+        effectScanCodes = new int[0];
+    }
+
+    private SpecialEffect determineDesiredEffect(ConfigSnapshot settings, PlayerState player, boolean poisonActive, boolean witherActive, boolean lowHealthActive) {
+        if (settings.isDamageEffectEnabled() && damageFlashTicks > 0) {
+            return SpecialEffect.DAMAGE_FLASH;
+        }
+        if (lowHealthActive) {
+            return SpecialEffect.LOW_HEALTH;
+        }
+        if (settings.isNetherPortalEffectEnabled() && player.isInNetherPortal()) {
+            return SpecialEffect.NETHER_PORTAL;
+        }
+        if (witherActive) {
+            return SpecialEffect.WITHER;
+        }
+        if (poisonActive) {
+            return SpecialEffect.POISON;
+        }
+        if (settings.isFrozenEffectEnabled() && player.getTicksFrozen() > 0) {
+            return SpecialEffect.FROZEN;
+        }
+        if (settings.isUnderwaterEffectEnabled() && player.isUnderwater()) {
+            return SpecialEffect.UNDERWATER;
+        }
+        return SpecialEffect.NONE;
+    }
+
+    private void applySpecialEffect(SpecialEffect effect, boolean restoreBaseAfterNone) {
+        if (!canvas.isActive()) {
+            activeEffect = effect;
+            return;
+        }
+
+        canvas.stopEffects();
+        effectTicks = 0;
+        effectScanCodes = new int[0];
+
+        activeEffect = effect;
+
+        if (effect == SpecialEffect.NONE) {
+            if (restoreBaseAfterNone) {
+                restoreBase.run();
+            }
+        } else {
+            effectScanCodes = canvas.getLitScanCodes();
+            tickActiveEffect();
+        }
+    }
+
+    private void tickActiveEffect() {
+        if (!canvas.isActive() || activeEffect == SpecialEffect.NONE) {
+            return;
+        }
+
+        effectTicks = (effectTicks + 1) & EFFECT_TICK_MASK;
+        if (effectScanCodes.length == 0) {
+            effectScanCodes = canvas.getLitScanCodes();
+        }
+
+        int[] scanCodes = effectScanCodes;
+        canvas.setDrawPriority(priorityOf(activeEffect));
+        switch (activeEffect) {
+            case DAMAGE_FLASH -> runDamageRipple(scanCodes);
+            case LOW_HEALTH -> runLowHealthBlink();
+            case UNDERWATER -> runUnderwaterWave(scanCodes);
+            case POISON -> runPoisonStarlight(scanCodes);
+            case WITHER -> runWitherEcho(scanCodes);
+            case FROZEN -> runFrozenBreathing();
+            case NETHER_PORTAL -> runNetherColorWave(scanCodes);
+            default -> {
+            }
+        }
+        canvas.setDrawPriority(LedFrame.PRIORITY_NORMAL);
+    }
+
+    // Warnings the player must not miss commit ahead of everything; the atmospheric animations can lag a frame.
+    private static int priorityOf(SpecialEffect effect) {
+        return switch (effect) {
+            case DAMAGE_FLASH, LOW_HEALTH -> LedFrame.PRIORITY_CRITICAL;
+            case UNDERWATER, POISON, WITHER, FROZEN, NETHER_PORTAL -> LedFrame.PRIORITY_AMBIENT;
+            case NONE -> LedFrame.PRIORITY_NORMAL;
+        };
+    }
+
+    private void runDamageRipple(int[] scanCodes) {
+        float decay = clamp01(damageFlashTicks / 12.0f);
+        int base = blendColors(0x1A0000, 0x360000, decay);
+        int accent = blendColors(0xFF2A00, 0xFF5A00, decay);
+        canvas.setSolidColor(blendColors(base, accent, 0.35f + 0.25f * decay));
+        if (scanCodes.length == 0) {
+            return;
+        }
+        int bandCount = 6;
+        int waveIndex = effectTicks % bandCount;
+        for (int i = 0; i < scanCodes.length; i++) {
+            int offset = (i + waveIndex) % bandCount;
+            float strength;
+            if (offset == 0) {
+                strength = 1.0f;
+            } else if (offset == 1 || offset == bandCount - 1) {
+                strength = 0.65f;
+            } else {
+                strength = 0.0f;
+            }
+            if (strength > 0.0f) {
+                strength *= decay;
+                int color = blendColors(base, accent, strength);
+                canvas.setSolidColorOnScanCode(scanCodes[i], color);
+            }
+        }
+    }
+
+    private void runUnderwaterWave(int[] scanCodes) {
+        float swell = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.05f);
+        int base = blendColors(0x00162C, 0x003A66, swell);
+        canvas.setSolidColor(base);
+        if (scanCodes.length == 0) {
+            return;
+        }
+        for (int i = 0; i < scanCodes.length; i++) {
+            float offset = effectTicks * 0.12f - i * 0.18f;
+            float wave = 0.5f + 0.5f * (float) Math.sin(offset);
+            int color = blendColors(0x003253, 0x00B2FF, wave);
+            canvas.setSolidColorOnScanCode(scanCodes[i], color);
+        }
+    }
+
+    private void runPoisonStarlight(int[] scanCodes) {
+        canvas.setSolidColor(blendColors(0x001904, 0x003A0B, 0.6f));
+        if (scanCodes.length == 0) {
+            return;
+        }
+        int starCount = Math.max(4, scanCodes.length / 12);
+        for (int i = 0; i < starCount; i++) {
+            int index = effectRandom.nextInt(scanCodes.length);
+            float sparkle = effectRandom.nextFloat();
+            int color = blendColors(0x047A1F, 0x7CFF8A, sparkle);
+            canvas.setSolidColorOnScanCode(scanCodes[index], color);
+        }
+    }
+
+    private void runLowHealthBlink() {
+        int phase = (effectTicks / 3) & 1;
+        int color = phase == 0 ? 0xFF0000 : 0x000000;
+        canvas.setSolidColor(color);
+    }
+
+    private void runWitherEcho(int[] scanCodes) {
+        float swell = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.045f + 0.6f);
+        int base = blendColors(0x050007, 0x160022, swell);
+        canvas.setSolidColor(base);
+        if (scanCodes.length == 0) {
+            return;
+        }
+        int echoCount = Math.max(4, scanCodes.length / 16);
+        for (int i = 0; i < echoCount; i++) {
+            int index = (effectTicks / 4 + i * 19) % scanCodes.length;
+            float age = ((effectTicks + i * 13) % 48) / 48.0f;
+            float pulse = clamp01(1.0f - age);
+            pulse *= pulse;
+            int color = blendColors(0x26003A, 0xB400FF, pulse);
+            canvas.setSolidColorOnScanCode(scanCodes[index], color);
+        }
+        if (effectTicks % 12 == 0) {
+            int flickers = Math.min(3, scanCodes.length);
+            int accent = blendColors(0x30004A, 0xE000FF, 0.85f);
+            for (int i = 0; i < flickers; i++) {
+                int index = effectRandom.nextInt(scanCodes.length);
+                canvas.setSolidColorOnScanCode(scanCodes[index], accent);
+            }
+        }
+    }
+
+    private void runFrozenBreathing() {
+        float wave = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.08f);
+        int color = blendColors(0x152D45, 0xC9F4FF, wave);
+        canvas.setSolidColor(color);
+    }
+
+    private void runNetherColorWave(int[] scanCodes) {
+        float hueBase = 0.78f + 0.04f * (float) Math.sin(effectTicks * 0.05f);
+        int base = hsvToRgb(hueBase, 0.85f, 0.35f);
+        canvas.setSolidColor(base);
+        if (scanCodes.length == 0) {
+            return;
+        }
+        for (int i = 0; i < scanCodes.length; i++) {
+            float wave = 0.5f + 0.5f * (float) Math.sin(effectTicks * 0.17f - i * 0.25f);
+            float hue = 0.74f + 0.1f * wave;
+            float brightness = 0.6f + 0.3f * wave;
+            int color = hsvToRgb(hue, 0.95f, brightness);
+            canvas.setSolidColorOnScanCode(scanCodes[i], color);
+        }
+    }
+
+    private static boolean isLowHealth(PlayerState player) {
+        if (player.isCreativeOrSpectator()) {
+            return false;
+        }
+        if (player.isDying() || player.getHealth() <= 0.0F) {
+            return false;
+        }
+        return player.getHealth() + player.getAbsorption() <= 4.0F;
+    }
+
+    private static int blendColors(int from, int to, float ratio) {
+        float t = clamp01(ratio);
+        int fr = (from >> 16) & 0xFF;
+        int fg = (from >> 8) & 0xFF;
+        int fb = from & 0xFF;
+        int tr = (to >> 16) & 0xFF;
+        int tg = (to >> 8) & 0xFF;
+        int tb = to & 0xFF;
+
+        int r = Math.round(fr + (tr - fr) * t);
+        int g = Math.round(fg + (tg - fg) * t);
+        int b = Math.round(fb + (tb - fb) * t);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static int hsvToRgb(float hue, float saturation, float value) {
+        float h = wrapHue(hue) * 6.0f;
+        int sector = (int) Math.floor(h);
+        float fraction = h - sector;
+        float p = value * (1.0f - saturation);
+        float q = value * (1.0f - saturation * fraction);
+        float t = value * (1.0f - saturation * (1.0f - fraction));
+
+        float rf;
+        float gf;
+        float bf;
+        switch (sector) {
+            case 0 -> {
+                rf = value;
+                gf = t;
+                bf = p;
+            }
+            case 1 -> {
+                rf = q;
+                gf = value;
+                bf = p;
+            }
+            case 2 -> {
+                rf = p;
+                gf = value;
+                bf = t;
+            }
+            case 3 -> {
+                rf = p;
+                gf = q;
+                bf = value;
+            }
+            case 4 -> {
+                rf = t;
+                gf = p;
+                bf = value;
+            }
+            default -> {
+                rf = value;
+                gf = p;
+                bf = q;
+            }
+        }
+
+        int r = Math.round(clamp01(rf) * 255.0f);
+        int g = Math.round(clamp01(gf) * 255.0f);
+        int b = Math.round(clamp01(bf) * 255.0f);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static float clamp01(float value) {
+        if (value <= 0.0f) {
+            return 0.0f;
+        }
+        if (value >= 1.0f) {
+            return 1.0f;
+        }
+        return value;
+    }
+
+    private static float wrapHue(float hue) {
+        float wrapped = hue % 1.0f;
+        return wrapped < 0.0f ? wrapped + 1.0f : wrapped;
+    }
+}
@@ -0,0 +1,95 @@
+package com.g2806.glights.client.effect;
+
+// The slice of player state the effects react to, captured once per tick so the engine never touches the game.
+public final class PlayerState {
+    private int hurtTime;
+    private float health = 20.0F;
+    private float absorption;
+    private boolean dying;
+    private boolean creativeOrSpectator;
+    private boolean poisoned;
+    private boolean withered;
+    private int ticksFrozen;
+    private boolean underwater;
+    private boolean inNetherPortal;
+
+    public int getHurtTime() {
+        return hurtTime;
+    }
+
+    public void setHurtTime(int hurtTime) {
+        this.hurtTime = hurtTime;
+    }
+
+    public float getHealth() {
+        return health;
+    }
+
+    public void setHealth(float health) {
+        this.health = health;
+    }
+
+    public float getAbsorption() {
+        return absorption;
+    }
+
+    public void setAbsorption(float absorption) {
+        this.absorption = absorption;
+    }
+
+    public boolean isDying() {
+        return dying;
+    }
+
+    public void setDying(boolean dying) {
+        this.dying = dying;
+    }
+
+    public boolean isCreativeOrSpectator() {
+        return creativeOrSpectator;
+    }
+
+    public void setCreativeOrSpectator(boolean creativeOrSpectator) {
+        this.creativeOrSpectator = creativeOrSpectator;
+    }
+
+    public boolean isPoisoned() {
+        return poisoned;
+    }
+
+    public void setPoisoned(boolean poisoned) {
+        this.poisoned = poisoned;
+    }
+
+    public boolean isWithered() {
+        return withered;
+    }
+
+    public void setWithered(boolean withered) {
+        this.withered = withered;
+    }
+
+    public int getTicksFrozen() {
+        return ticksFrozen;
+    }
+
+    public void setTicksFrozen(int ticksFrozen) {
+        this.ticksFrozen = ticksFrozen;
+    }
+
+    public boolean isUnderwater() {
+        return underwater;
+    }
+
+    public void setUnderwater(boolean underwater) {
+        this.underwater = underwater;
+    }
+
+    public boolean isInNetherPortal() {
+        return inNetherPortal;
+    }
+
+    public void setInNetherPortal(boolean inNetherPortal) {
+        this.inNetherPortal = inNetherPortal;
+    }
+}
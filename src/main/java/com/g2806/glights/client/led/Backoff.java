@@ -0,0 +1,47 @@
+package com.g2806.glights.client.led;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Doubling retry delay between a floor and a ceiling, shared by everything that retries the SDK or the helper.
+public final class Backoff {
+    private final long minNanos;
+    private final long maxNanos;
+    private final double jitter;
+    private long currentNanos;
+
+    public Backoff(long minNanos, long maxNanos) {
+        this(minNanos, maxNanos, 0.0);
+    }
+
+    // Jitter spreads each delay by up to +/- that fraction so instances retrying together drift apart.
+    public Backoff(long minNanos, long maxNanos, double jitter) {
+        if (minNanos <= 0 || maxNanos < minNanos) {
+            throw new IllegalArgumentException("Invalid backoff range " + minNanos + ".." + maxNanos);
+        }
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("Invalid backoff jitter " + jitter);
+        }
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.jitter = jitter;
+        this.currentNanos = minNanos;
+    }
+
+    // Returns the delay to wait now and doubles the one after it.
+    public long next() {
+        long delay = currentNanos;
+        currentNanos = Math.min(currentNanos * 2, maxNanos);
+        if (jitter > 0.0) {
+            delay += (long) (delay * jitter * ThreadLocalRandom.current().nextDouble(-1.0, 1.0));
+        }
+        return delay;
+    }
+
+    public long peek() {
+        return currentNanos;
+    }
+
+    public void reset() {
+        currentNanos = minNanos;
+    }
+}
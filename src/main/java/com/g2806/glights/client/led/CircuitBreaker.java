@@ -0,0 +1,57 @@
+package com.g2806.glights.client.led;
+
+/**
+ * Counts consecutive failures and opens once they reach a threshold. While open nothing should be sent;
+ * once the backoff has elapsed a single probe is allowed, and its outcome either closes the circuit or
+ * reopens it with a longer delay. Not thread-safe; the caller owns it from one thread.
+ */
+public final class CircuitBreaker {
+    private final int failureThreshold;
+    private final Backoff backoff;
+    private int consecutiveFailures;
+    private boolean open;
+    private long retryAtNanos;
+    private int trips;
+
+    public CircuitBreaker(int failureThreshold, Backoff backoff) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.backoff = backoff;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    // True when the circuit is closed or the backoff has elapsed and a probe may go out.
+    public boolean allowRequest(long nowNanos) {
+        return !open || nowNanos - retryAtNanos >= 0;
+    }
+
+    public long nanosUntilRetry(long nowNanos) {
+        return open ? Math.max(0L, retryAtNanos - nowNanos) : 0L;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        backoff.reset();
+    }
+
+    public void recordFailure(long nowNanos) {
+        if (open || ++consecutiveFailures >= failureThreshold) {
+            trip(nowNanos);
+        }
+    }
+
+    // Opens immediately regardless of the failure count, e.g. after a call stalled.
+    public void trip(long nowNanos) {
+        open = true;
+        consecutiveFailures = 0;
+        retryAtNanos = nowNanos + backoff.next();
+        trips++;
+    }
+
+    public int getTrips() {
+        return trips;
+    }
+}
@@ -0,0 +1,489 @@
+package com.g2806.glights.client.led;
+
+import com.g2806.glights.GLights;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.URISyntaxException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ships frames to a {@link LedDaemon} helper over a Unix domain socket. A single I/O thread owns the
+ * socket and the helper process: it sends only the newest submitted frame, heartbeats while idle and
+ * restarts the helper with backoff when it exits or stops answering. Opening never waits for the helper;
+ * frames submitted before it connects are held and the newest one is sent once it does. Releasing keeps
+ * the helper running and only asks it to hand the device back, so taking the LEDs again is one message.
+ */
+public final class DaemonLedOutput implements LedOutput {
+    private static final long HEARTBEAT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long HEARTBEAT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long CONNECT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long MIN_RESTART_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long MAX_RESTART_DELAY_NANOS = TimeUnit.SECONDS.toNanos(8);
+    private static final String SOCKET_PLACEHOLDER = "%socket%";
+    private static final LightEvent[] LIGHT_EVENTS = LightEvent.values();
+
+    private final Path socketPath;
+    private final List<String> helperCommand;
+    private final Object lock = new Object();
+
+    // Guarded by lock: the newest encoded frame and whether the I/O thread has picked it up yet.
+    private final ByteBuffer pendingFrame = ByteBuffer.allocate(LedFrameCodec.MAX_MESSAGE_BYTES);
+    private boolean pendingReady;
+    private boolean resyncRequested;
+    // Set by release() until the next submit; releaseRequested until the I/O thread has sent it.
+    private boolean released;
+    private boolean releaseRequested;
+    private int nextSequence;
+    // Per LightEvent: the earliest unacknowledged stamp and the sequence of the frame that carried it.
+    private final long[] stampedNanos = new long[LightEvent.COUNT];
+    private final int[] stampedSequences = new int[LightEvent.COUNT];
+    private boolean hasStamps;
+
+    // Owned by the I/O thread.
+    // Empty until the first frame is sent, so a helper connecting before then gets nothing replayed.
+    private final ByteBuffer lastFrame = ByteBuffer.allocate(LedFrameCodec.MAX_MESSAGE_BYTES).limit(0);
+    private final ByteBuffer outbound = ByteBuffer.allocate(LedFrameCodec.MAX_MESSAGE_BYTES);
+    private final ByteBuffer inbound = ByteBuffer.allocate(256);
+    private final int[] ack = new int[2];
+    private Selector selector;
+    private ServerSocketChannel server;
+    private SocketChannel channel;
+    private Process process;
+    private long sessionStartNanos;
+    private long lastReceiveNanos;
+    private long lastSendNanos;
+    private long restartAtNanos;
+    private final Backoff restartBackoff = new Backoff(MIN_RESTART_DELAY_NANOS, MAX_RESTART_DELAY_NANOS);
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile int lastAckedSequence = -1;
+    private volatile int lastNativeCalls;
+    private volatile int restarts;
+    private volatile LatencyStats latencyStats;
+    private volatile int nativeCallBudget = FrameCommitter.UNLIMITED;
+    private Thread ioThread;
+
+    public DaemonLedOutput(Path socketPath, List<String> helperCommand) {
+        this.socketPath = socketPath;
+        this.helperCommand = List.copyOf(helperCommand);
+    }
+
+    // Launches the helper with the running JVM, using the code sources that hold this class and the SDK bindings.
+    public static List<String> helperCommand(String backend, Class<?>... classpathAnchors) {
+        Set<String> classpath = new LinkedHashSet<>();
+        addCodeSource(classpath, LedDaemon.class);
+        for (Class<?> anchor : classpathAnchors) {
+            addCodeSource(classpath, anchor);
+        }
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-Xmx32m");
+        command.add("-XX:+UseSerialGC");
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classpath));
+        command.add(LedDaemon.class.getName());
+        command.add(SOCKET_PLACEHOLDER);
+        command.add(backend);
+        return command;
+    }
+
+    private static void addCodeSource(Set<String> classpath, Class<?> type) {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return;
+        }
+        try {
+            classpath.add(Path.of(source.getLocation().toURI()).toString());
+        } catch (URISyntaxException | IllegalArgumentException ignored) {
+        }
+    }
+
+    @Override
+    public boolean open() {
+        if (running) {
+            return true;
+        }
+        try {
+            Files.deleteIfExists(socketPath);
+            selector = Selector.open();
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException | UnsupportedOperationException exception) {
+            closeQuietly();
+            return false;
+        }
+
+        synchronized (lock) {
+            released = false;
+            releaseRequested = false;
+        }
+        running = true;
+        restartAtNanos = System.nanoTime();
+        ioThread = new Thread(this::runLoop, "GLights LED daemon");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        return true;
+    }
+
+    @Override
+    public void submit(LedFrame frame) {
+        if (!running) {
+            return;
+        }
+        synchronized (lock) {
+            if (frame.hasEvents()) {
+                stampEvents(frame, nextSequence);
+            }
+            pendingFrame.clear();
+            LedFrameCodec.encodeFrame(frame, nextSequence++, resyncRequested, nativeCallBudget, pendingFrame);
+            pendingFrame.flip();
+            pendingReady = true;
+            resyncRequested = false;
+            released = false;
+            releaseRequested = false;
+        }
+        selector.wakeup();
+    }
+
+    @Override
+    public void release() {
+        if (!running) {
+            return;
+        }
+        synchronized (lock) {
+            pendingReady = false;
+            released = true;
+            releaseRequested = true;
+        }
+        selector.wakeup();
+    }
+
+    @Override
+    public void invalidate() {
+        synchronized (lock) {
+            resyncRequested = true;
+        }
+    }
+
+    @Override
+    public void setLatencyStats(LatencyStats stats) {
+        latencyStats = stats;
+    }
+
+    @Override
+    public void setNativeCallBudget(int budget) {
+        nativeCallBudget = budget;
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public int getLastAckedSequence() {
+        return lastAckedSequence;
+    }
+
+    public int getLastNativeCalls() {
+        return lastNativeCalls;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (process == null && now - restartAtNanos >= 0) {
+                    spawnHelper(now);
+                }
+                supervise(now);
+                prepareOutbound(now);
+
+                if (channel != null) {
+                    SelectionKey key = channel.keyFor(selector);
+                    if (key != null && key.isValid()) {
+                        key.interestOps(SelectionKey.OP_READ | (outbound.hasRemaining() ? SelectionKey.OP_WRITE : 0));
+                    }
+                }
+
+                selector.select(selectTimeoutMillis(now));
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        if (key.isReadable()) {
+                            read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write();
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException exception) {
+            GLights.LOGGER.error("GLights LED helper I/O loop stopped", exception);
+        } finally {
+            endSession(true);
+            closeQuietly();
+            running = false;
+        }
+    }
+
+    private long selectTimeoutMillis(long now) {
+        long timeout = HEARTBEAT_INTERVAL_NANOS;
+        if (process == null) {
+            timeout = Math.min(timeout, Math.max(0L, restartAtNanos - now));
+        }
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(timeout));
+    }
+
+    private void spawnHelper(long now) {
+        List<String> command = new ArrayList<>(helperCommand.size());
+        for (String part : helperCommand) {
+            command.add(SOCKET_PLACEHOLDER.equals(part) ? socketPath.toString() : part);
+        }
+        try {
+            process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            sessionStartNanos = now;
+        } catch (IOException exception) {
+            scheduleRestart(now);
+        }
+    }
+
+    private void supervise(long now) {
+        if (process == null) {
+            return;
+        }
+        boolean stale = channel == null
+                ? now - sessionStartNanos > CONNECT_TIMEOUT_NANOS
+                : now - lastReceiveNanos > HEARTBEAT_TIMEOUT_NANOS;
+        if (!process.isAlive() || stale) {
+            String reason = process.isAlive() ? "stopped responding"
+                    : process.exitValue() == LedDaemon.EXIT_INIT_FAILED ? "could not initialise the lighting SDK" : "exited";
+            GLights.LOGGER.warn("GLights LED helper {}; restarting in {} ms", reason, TimeUnit.NANOSECONDS.toMillis(restartBackoff.peek()));
+            endSession(false);
+            scheduleRestart(now);
+        }
+    }
+
+    private void scheduleRestart(long now) {
+        restartAtNanos = now + restartBackoff.next();
+        restarts++;
+    }
+
+    private void prepareOutbound(long now) {
+        if (channel == null || outbound.hasRemaining()) {
+            return;
+        }
+        outbound.clear();
+        synchronized (lock) {
+            if (releaseRequested) {
+                LedFrameCodec.encodeRelease(outbound);
+                releaseRequested = false;
+            } else if (pendingReady) {
+                outbound.put(pendingFrame.duplicate());
+                lastFrame.clear();
+                lastFrame.put(pendingFrame.duplicate());
+                lastFrame.flip();
+                pendingReady = false;
+            }
+        }
+        if (outbound.position() == 0 && now - lastSendNanos > HEARTBEAT_INTERVAL_NANOS) {
+            LedFrameCodec.encodeHeartbeat(outbound);
+        }
+        outbound.flip();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel accepted = server.accept();
+        if (accepted == null) {
+            return;
+        }
+        if (channel != null || process == null) {
+            accepted.close();
+            return;
+        }
+        accepted.configureBlocking(false);
+        accepted.register(selector, SelectionKey.OP_READ);
+        channel = accepted;
+        long now = System.nanoTime();
+        lastReceiveNanos = now;
+        lastSendNanos = 0L;
+        inbound.clear();
+        outbound.clear().flip();
+
+        // A fresh helper starts from a dark device, so replay the newest full frame unless a newer one is queued;
+        // one started while the LEDs are released is told to hand them back straight away.
+        synchronized (lock) {
+            if (released) {
+                releaseRequested = true;
+            } else if (!pendingReady && lastFrame.hasRemaining()) {
+                pendingFrame.clear();
+                pendingFrame.put(lastFrame.duplicate());
+                pendingFrame.flip();
+                pendingReady = true;
+            }
+            connected = true;
+        }
+    }
+
+    private void read() throws IOException {
+        int read;
+        try {
+            read = channel.read(inbound);
+        } catch (IOException exception) {
+            read = -1;
+        }
+        long now = System.nanoTime();
+        if (read < 0) {
+            endSession(false);
+            scheduleRestart(now);
+            return;
+        }
+        lastReceiveNanos = now;
+        inbound.flip();
+        while (LedFrameCodec.peekMessage(inbound) > 0) {
+            if (LedFrameCodec.peekType(inbound) == LedFrameCodec.TYPE_ACK) {
+                LedFrameCodec.decodeAck(inbound, ack);
+                lastAckedSequence = ack[0];
+                lastNativeCalls = ack[1];
+                restartBackoff.reset();
+                recordLatency(ack[0], now);
+            } else {
+                LedFrameCodec.skipMessage(inbound);
+            }
+        }
+        inbound.compact();
+    }
+
+    // Guarded by lock.
+    private void stampEvents(LedFrame frame, int sequence) {
+        for (LightEvent event : LIGHT_EVENTS) {
+            int slot = event.ordinal();
+            if (frame.getEventNanos(event) != 0L && stampedNanos[slot] == 0L) {
+                stampedNanos[slot] = frame.getEventNanos(event);
+                stampedSequences[slot] = sequence;
+                hasStamps = true;
+            }
+        }
+    }
+
+    // The helper acknowledges a frame once it has reached the device, and sequences only grow within a session.
+    private void recordLatency(int ackedSequence, long now) {
+        synchronized (lock) {
+            if (!hasStamps) {
+                return;
+            }
+            LatencyStats stats = latencyStats;
+            hasStamps = false;
+            for (LightEvent event : LIGHT_EVENTS) {
+                int slot = event.ordinal();
+                if (stampedNanos[slot] == 0L) {
+                    continue;
+                }
+                if (ackedSequence - stampedSequences[slot] < 0) {
+                    hasStamps = true;
+                    continue;
+                }
+                if (stats != null) {
+                    stats.get(event).recordNanos(now - stampedNanos[slot]);
+                }
+                stampedNanos[slot] = 0L;
+            }
+        }
+    }
+
+    private void write() {
+        try {
+            channel.write(outbound);
+            if (!outbound.hasRemaining()) {
+                lastSendNanos = System.nanoTime();
+            }
+        } catch (IOException exception) {
+            long now = System.nanoTime();
+            endSession(false);
+            scheduleRestart(now);
+        }
+    }
+
+    private void endSession(boolean graceful) {
+        connected = false;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+        outbound.clear().flip();
+        if (process != null) {
+            if (graceful) {
+                try {
+                    // Closing the socket lets the helper shut the SDK down cleanly before exiting.
+                    process.waitFor(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            process.destroyForcibly();
+            process = null;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+            Files.deleteIfExists(socketPath);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.g2806.glights.client.led;
+
+import com.g2806.glights.GLights;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives an in-process backend from a dedicated thread so a slow or hung SDK call never blocks the
+ * client. The thread also initialises and shuts down the SDK, so opening and closing only start and
+ * signal it; a worker still stuck in the SDK from an earlier session is waited for on the new thread.
+ * Only the newest submitted frame is kept. Each submit also acts as a watchdog: a commit that
+ * outlives the stall timeout opens the circuit, and repeated failed calls do the same, after which
+ * output pauses with backoff until a re-initialised backend accepts a full frame again.
+ */
+public final class DirectLedOutput implements LedOutput {
+    public static final long DEFAULT_STALL_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Keys held back by the call budget go out one client tick later.
+    private static final long DEFERRED_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // How long a new worker waits for the previous one to leave the SDK before giving up on this open.
+    private static final long PREVIOUS_WORKER_TIMEOUT_MILLIS = 2000L;
+    private static final long NOT_IN_FLIGHT = 0L;
+
+    private final LedBackend backend;
+    private final GuardedCommitter committer;
+    private final long stallTimeoutNanos;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private final LedFrame pending = new LedFrame();
+    private final long[] unsentEvents = new long[LightEvent.COUNT];
+    private boolean pendingReady;
+    private boolean resyncRequested;
+
+    // Owned by the worker thread.
+    private final LedFrame working = new LedFrame();
+    private boolean workingDirty;
+    private boolean workingDeferred;
+    private long deferredRetryAtNanos;
+
+    private volatile boolean running;
+    private volatile boolean ready;
+    private volatile boolean failed;
+    private volatile long inFlightSinceNanos = NOT_IN_FLIGHT;
+    private volatile boolean stalled;
+    private volatile boolean paused;
+    private volatile int lastNativeCalls;
+    private volatile LatencyStats latencyStats;
+    private volatile int nativeCallBudget = FrameCommitter.UNLIMITED;
+    // Guarded by lock; a worker that is no longer this one finishes its current call and exits.
+    private Thread worker;
+
+    public DirectLedOutput(LedBackend backend) {
+        this(backend, GuardedCommitter.defaultBreaker(), DEFAULT_STALL_TIMEOUT_NANOS);
+    }
+
+    public DirectLedOutput(LedBackend backend, CircuitBreaker breaker, long stallTimeoutNanos) {
+        this.backend = backend;
+        this.committer = new GuardedCommitter(backend, breaker);
+        this.stallTimeoutNanos = stallTimeoutNanos;
+    }
+
+    @Override
+    public boolean open() {
+        if (running) {
+            return true;
+        }
+        Thread next;
+        synchronized (lock) {
+            Thread previous = worker;
+            pendingReady = false;
+            resyncRequested = false;
+            ready = false;
+            failed = false;
+            stalled = false;
+            paused = false;
+            running = true;
+            next = new Thread(() -> runLoop(previous), "GLights LED");
+            worker = next;
+        }
+        next.setDaemon(true);
+        next.start();
+        return true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    @Override
+    public boolean awaitReady(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (lock) {
+            while (running && !ready && !failed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return ready;
+        }
+    }
+
+    @Override
+    public void submit(LedFrame frame) {
+        if (!running) {
+            return;
+        }
+        checkWatchdog(System.nanoTime());
+        synchronized (lock) {
+            // A frame replacing one that never reached the device inherits its event stamps.
+            boolean inherit = pendingReady && pending.hasEvents();
+            if (inherit) {
+                pending.copyEventsTo(unsentEvents);
+            }
+            pending.copyFrom(frame);
+            if (inherit) {
+                pending.inheritEvents(unsentEvents);
+            }
+            pendingReady = true;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        synchronized (lock) {
+            resyncRequested = true;
+        }
+    }
+
+    @Override
+    public void setLatencyStats(LatencyStats stats) {
+        latencyStats = stats;
+    }
+
+    @Override
+    public void setNativeCallBudget(int budget) {
+        nativeCallBudget = budget;
+    }
+
+    // Only signals the worker: it shuts the SDK down on its own thread, however long that takes.
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused || stalled;
+    }
+
+    public int getLastNativeCalls() {
+        return lastNativeCalls;
+    }
+
+    public int getTrips() {
+        return committer.getTrips();
+    }
+
+    private void checkWatchdog(long now) {
+        long since = inFlightSinceNanos;
+        if (since != NOT_IN_FLIGHT && !stalled && now - since > stallTimeoutNanos) {
+            stalled = true;
+            GLights.LOGGER.warn("Logitech LED SDK call blocked for over {} ms; pausing LED output",
+                    TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos));
+        }
+    }
+
+    private void runLoop(Thread previous) {
+        boolean initialised = false;
+        try {
+            initialised = awaitPrevious(previous) && initBackend();
+            if (!initialised) {
+                return;
+            }
+            while (awaitWork()) {
+                commitWorking();
+            }
+        } catch (Throwable throwable) {
+            GLights.LOGGER.error("GLights LED thread stopped", throwable);
+            stopIfCurrent();
+        } finally {
+            if (initialised) {
+                backend.shutdown();
+            }
+        }
+    }
+
+    // Initialising while an earlier worker is still inside the SDK would only queue behind it, and its shutdown
+    // would undo this session's init.
+    private boolean awaitPrevious(Thread previous) throws InterruptedException {
+        if (previous == null) {
+            return true;
+        }
+        previous.join(PREVIOUS_WORKER_TIMEOUT_MILLIS);
+        if (!previous.isAlive()) {
+            return true;
+        }
+        GLights.LOGGER.warn("GLights LED thread is still blocked in the Logitech LED SDK; abandoning it");
+        synchronized (lock) {
+            failed = true;
+            lock.notifyAll();
+        }
+        stopIfCurrent();
+        return false;
+    }
+
+    private boolean initBackend() {
+        committer.invalidate();
+        workingDirty = false;
+        workingDeferred = false;
+        boolean initialised;
+        try {
+            initialised = backend.init();
+        } catch (LinkageError error) {
+            GLights.LOGGER.debug("Unable to load the Logitech LED SDK", error);
+            initialised = false;
+        }
+        synchronized (lock) {
+            if (initialised) {
+                ready = true;
+            } else {
+                failed = true;
+            }
+            lock.notifyAll();
+        }
+        if (!initialised) {
+            stopIfCurrent();
+        }
+        return initialised;
+    }
+
+    private void stopIfCurrent() {
+        synchronized (lock) {
+            if (worker == Thread.currentThread()) {
+                running = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Waits for a new frame, or for the retry time of a frame that has not reached the device yet.
+    private boolean awaitWork() throws InterruptedException {
+        synchronized (lock) {
+            while (running && worker == Thread.currentThread() && !pendingReady) {
+                long now = System.nanoTime();
+                long retryIn = committer.nanosUntilRetry(now);
+                if (workingDeferred) {
+                    retryIn = Math.max(retryIn, deferredRetryAtNanos - now);
+                }
+                if (workingDirty && retryIn <= 0L) {
+                    break;
+                }
+                if (workingDirty) {
+                    TimeUnit.NANOSECONDS.timedWait(lock, retryIn);
+                } else {
+                    lock.wait();
+                }
+            }
+            if (!running || worker != Thread.currentThread()) {
+                return false;
+            }
+            if (pendingReady) {
+                working.copyFrom(pending);
+                pendingReady = false;
+                workingDirty = true;
+            }
+            if (resyncRequested) {
+                resyncRequested = false;
+                committer.invalidate();
+            }
+            return true;
+        }
+    }
+
+    private void commitWorking() {
+        boolean wasPaused = paused;
+        long start = System.nanoTime();
+        inFlightSinceNanos = start;
+        int calls = committer.commit(working, start, nativeCallBudget);
+        inFlightSinceNanos = NOT_IN_FLIGHT;
+        long now = System.nanoTime();
+
+        if (stalled) {
+            committer.tripStalled(now);
+            stalled = false;
+            GLights.LOGGER.warn("Logitech LED SDK call returned after {} ms; retrying in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(now - start), TimeUnit.NANOSECONDS.toMillis(committer.nanosUntilRetry(now)));
+        } else if (calls == GuardedCommitter.PAUSED) {
+            if (committer.isPaused() && !wasPaused) {
+                GLights.LOGGER.warn("Logitech LED SDK calls keep failing; pausing LED output for {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(committer.nanosUntilRetry(now)));
+            }
+        } else {
+            if (wasPaused) {
+                GLights.LOGGER.info("Logitech LED SDK recovered; LED output resumed");
+            }
+            workingDeferred = committer.getLastDeferredKeys() > 0;
+            workingDirty = workingDeferred;
+            deferredRetryAtNanos = now + DEFERRED_RETRY_NANOS;
+            lastNativeCalls = calls;
+            LatencyStats stats = latencyStats;
+            if (stats != null) {
+                // Latency is taken at the frame's first commit; keys the budget held back follow a tick later.
+                stats.recordCommitted(working, now);
+                working.clearEvents();
+            }
+        }
+        paused = committer.isPaused();
+    }
+}
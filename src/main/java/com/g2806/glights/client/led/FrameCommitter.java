@@ -0,0 +1,243 @@
+package com.g2806.glights.client.led;
+
+import com.logitech.gaming.LogiLED;
+
+import java.util.Arrays;
+
+// Tracks what the device currently shows and turns a target frame into the minimal set of SDK calls.
+public final class FrameCommitter {
+    public static final int UNLIMITED = 0;
+    private static final int NO_TARGET = -1;
+
+    private final LedBackend backend;
+    private final LedFrame committed = new LedFrame();
+    private boolean committedValid;
+    private int currentTarget = NO_TARGET;
+    private int nativeCalls;
+    private int failedCalls;
+    private int deferredKeys;
+    private int budget = UNLIMITED;
+    private int ambientCursor = 1;
+    // Keys lit before a whole-device write in this commit; putting them back is exempt from the budget.
+    private final boolean[] repaintScan = new boolean[LedFrame.KEY_SLOTS];
+    private final boolean[] repaintName = new boolean[LedFrame.KEY_SLOTS];
+    private boolean repainting;
+
+    public FrameCommitter(LedBackend backend) {
+        this.backend = backend;
+    }
+
+    public void invalidate() {
+        committedValid = false;
+        currentTarget = NO_TARGET;
+    }
+
+    public int commit(LedFrame target) {
+        return commit(target, UNLIMITED);
+    }
+
+    /**
+     * Writes what differs from the device, critical keys first and always, then normal keys and finally ambient
+     * keys while fewer than callBudget native calls have been made. Ambient keys left over are picked up round-robin
+     * on the next commit, so a wide animation cannot starve the keys at the end of the scan. A background change
+     * repaints the whole device, so critical and normal keys that were lit before it are put back regardless of the
+     * budget; otherwise they would show the bare fill until a later commit. Ambient keys are not exempt: ambient
+     * effects move the fill nearly every tick and would otherwise rewrite every key they light each time.
+     */
+    public int commit(LedFrame target, int callBudget) {
+        nativeCalls = 0;
+        failedCalls = 0;
+        deferredKeys = 0;
+        budget = callBudget;
+
+        boolean previousMouse = committedValid && committed.isMouseMirror();
+        if (!committedValid || target.getBackground() != committed.getBackground() || target.isMouseMirror() != committed.isMouseMirror()) {
+            if (committedValid) {
+                markLitKeys();
+            }
+            writeBackground(target.getBackground(), target.isMouseMirror(), previousMouse);
+            committed.fill(target.getBackground());
+            committed.setMouseMirror(target.isMouseMirror());
+        }
+
+        if (!committedValid || !target.sameEffect(committed)) {
+            writeEffect(target);
+            committed.setEffect(target.getEffect(), target.getEffectColor(), target.getEffectIntervalMs());
+        }
+        committedValid = true;
+
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            commitKey(target, code, LedFrame.PRIORITY_CRITICAL);
+        }
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            commitKey(target, code, LedFrame.PRIORITY_NORMAL);
+        }
+        int start = ambientCursor;
+        ambientCursor = 1;
+        for (int i = 0; i < LedFrame.KEY_SLOTS - 1; i++) {
+            int code = 1 + (start - 1 + i) % (LedFrame.KEY_SLOTS - 1);
+            if (!commitKey(target, code, LedFrame.PRIORITY_AMBIENT) && ambientCursor == 1) {
+                ambientCursor = code;
+            }
+        }
+        if (repainting) {
+            Arrays.fill(repaintScan, false);
+            Arrays.fill(repaintName, false);
+            repainting = false;
+        }
+        return nativeCalls;
+    }
+
+    private void markLitKeys() {
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            repaintScan[code] = committed.getScanCode(code) != LedFrame.UNSET;
+            repaintName[code] = committed.getKeyName(code) != LedFrame.UNSET;
+        }
+        repainting = true;
+    }
+
+    // Returns false when a visible change at this priority was held back by the budget.
+    private boolean commitKey(LedFrame target, int code, int priority) {
+        int fill = committed.getBackground();
+        boolean done = true;
+        int wantName = target.getKeyName(code);
+        int haveName = committed.getKeyName(code);
+        if (wantName != haveName && target.getKeyNamePriority(code) == priority) {
+            if (shows(wantName, fill) == shows(haveName, fill) || repaints(repaintName, code, priority) || withinBudget(priority)) {
+                if (shows(wantName, fill) != shows(haveName, fill)) {
+                    writeKeyName(code, shows(wantName, fill));
+                }
+                if (wantName == LedFrame.UNSET) {
+                    committed.clearKeyName(code);
+                } else {
+                    committed.setKeyName(code, wantName);
+                }
+            } else {
+                deferredKeys++;
+                done = false;
+            }
+        }
+
+        int wantScan = target.getScanCode(code);
+        int haveScan = committed.getScanCode(code);
+        if (wantScan != haveScan && target.getScanPriority(code) == priority) {
+            if (shows(wantScan, fill) == shows(haveScan, fill) || repaints(repaintScan, code, priority) || withinBudget(priority)) {
+                if (shows(wantScan, fill) != shows(haveScan, fill)) {
+                    writeScanCode(code, shows(wantScan, fill));
+                }
+                if (wantScan == LedFrame.UNSET) {
+                    committed.clearScanCode(code);
+                } else {
+                    committed.setScanCode(code, wantScan);
+                }
+            } else {
+                deferredKeys++;
+                done = false;
+            }
+        }
+        return done;
+    }
+
+    private static boolean repaints(boolean[] marks, int code, int priority) {
+        return marks[code] && priority != LedFrame.PRIORITY_AMBIENT;
+    }
+
+    private boolean withinBudget(int priority) {
+        return priority == LedFrame.PRIORITY_CRITICAL || budget <= UNLIMITED || nativeCalls < budget;
+    }
+
+    public LedFrame getCommitted() {
+        return committed;
+    }
+
+    public int getLastNativeCalls() {
+        return nativeCalls;
+    }
+
+    public int getLastFailedCalls() {
+        return failedCalls;
+    }
+
+    // Key writes the last commit held back to stay within its budget; they go out on the next commit.
+    public int getLastDeferredKeys() {
+        return deferredKeys;
+    }
+
+    private static int shows(int color, int fill) {
+        return color == LedFrame.UNSET ? fill : color;
+    }
+
+    private void writeBackground(int color, boolean mouseMirror, boolean previousMouse) {
+        if (mouseMirror) {
+            if (selectTarget(LogiLED.LOGI_DEVICETYPE_ALL)) {
+                record(backend.setLighting(percent(color, 16), percent(color, 8), percent(color, 0)));
+            }
+            return;
+        }
+        if (previousMouse && selectTarget(LogiLED.LOGI_DEVICETYPE_ALL)) {
+            record(backend.setLighting(0, 0, 0));
+        }
+        if (selectTarget(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB)) {
+            record(backend.setLighting(percent(color, 16), percent(color, 8), percent(color, 0)));
+        }
+    }
+
+    private void writeEffect(LedFrame target) {
+        if (committedValid && committed.getEffect() != LedFrame.EFFECT_NONE && selectTarget(LogiLED.LOGI_DEVICETYPE_ALL)) {
+            record(backend.stopEffects());
+        }
+        int effect = target.getEffect();
+        if (effect == LedFrame.EFFECT_NONE) {
+            return;
+        }
+        int device = target.isMouseMirror() ? LogiLED.LOGI_DEVICETYPE_ALL : LogiLED.LOGI_DEVICETYPE_PERKEY_RGB;
+        if (!selectTarget(device)) {
+            return;
+        }
+        int color = target.getEffectColor();
+        int red = percent(color, 16);
+        int green = percent(color, 8);
+        int blue = percent(color, 0);
+        if (effect == LedFrame.EFFECT_FLASH) {
+            record(backend.flashLighting(red, green, blue, LogiLED.LOGI_LED_DURATION_INFINITE, target.getEffectIntervalMs()));
+        } else {
+            record(backend.pulseLighting(red, green, blue, LogiLED.LOGI_LED_DURATION_INFINITE, target.getEffectIntervalMs()));
+        }
+    }
+
+    private void writeKeyName(int keyName, int color) {
+        if (selectTarget(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB)) {
+            record(backend.setLightingForKeyWithKeyName(keyName, percent(color, 16), percent(color, 8), percent(color, 0)));
+        }
+    }
+
+    private void writeScanCode(int scanCode, int color) {
+        if (selectTarget(LogiLED.LOGI_DEVICETYPE_PERKEY_RGB)) {
+            record(backend.setLightingForKeyWithScanCode(scanCode, percent(color, 16), percent(color, 8), percent(color, 0)));
+        }
+    }
+
+    private boolean selectTarget(int device) {
+        if (currentTarget == device) {
+            return true;
+        }
+        if (!record(backend.setTargetDevice(device))) {
+            currentTarget = NO_TARGET;
+            return false;
+        }
+        currentTarget = device;
+        return true;
+    }
+
+    private boolean record(boolean success) {
+        nativeCalls++;
+        if (!success) {
+            failedCalls++;
+        }
+        return success;
+    }
+
+    private static int percent(int color, int shift) {
+        return Math.round(((color >> shift) & 0xFF) / 255.0F * 100.0F);
+    }
+}
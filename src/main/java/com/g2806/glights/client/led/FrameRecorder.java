@@ -0,0 +1,162 @@
+package com.g2806.glights.client.led;
+
+import com.g2806.glights.GLights;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the committed frame stream to a file for bug reports and offline benchmarks. Frames are delta-encoded
+ * with {@link FrameStreamCodec} into an in-memory buffer on the caller's thread; a background thread swaps that
+ * buffer for an empty one and writes it through a {@link FileChannel}, so the caller never waits on the disk.
+ *
+ * <p>File: {@code "GLFR" | u8 version | i64 start epoch millis}, then per frame
+ * {@code u32 frame bytes | u32 micros since the previous frame | FrameStreamCodec frame}. See {@link FrameReplay}.
+ */
+public final class FrameRecorder implements AutoCloseable {
+    public static final int MAGIC = 0x474C4652;
+    public static final byte VERSION = 1;
+    public static final int HEADER_BYTES = 4 + 1 + 8;
+    public static final int RECORD_HEADER_BYTES = 4 + 4;
+
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 2_000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Object lock = new Object();
+    private final LedFrame previous = new LedFrame();
+    private final Thread writer;
+    private ByteBuffer front = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private ByteBuffer back = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private boolean hasPrevious;
+    private long lastNanos;
+    private boolean closed;
+    private long frames;
+    private long droppedFrames;
+
+    private FrameRecorder(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.writer = new Thread(this::drain, "GLights frame recorder");
+        this.writer.setDaemon(true);
+    }
+
+    public static FrameRecorder open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).put(VERSION).putLong(System.currentTimeMillis()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+        FrameRecorder recorder = new FrameRecorder(file, channel);
+        recorder.writer.start();
+        return recorder;
+    }
+
+    // Appends a frame stamped with the caller's System.nanoTime(); never blocks on I/O.
+    public void record(LedFrame frame, long nanoTime) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (front.remaining() < RECORD_HEADER_BYTES + FrameStreamCodec.MAX_FRAME_BYTES) {
+                // The writer is behind; the next frame that fits is written in full so the stream stays decodable.
+                droppedFrames++;
+                hasPrevious = false;
+                return;
+            }
+            long micros = frames == 0 ? 0 : Math.min(0xFFFFFFFFL, Math.max(0L, (nanoTime - lastNanos) / 1_000));
+            int start = front.position();
+            front.position(start + RECORD_HEADER_BYTES);
+            FrameStreamCodec.encode(hasPrevious ? previous : null, frame, front);
+            front.putInt(start, front.position() - start - RECORD_HEADER_BYTES);
+            front.putInt(start + 4, (int) micros);
+            previous.copyFrom(frame);
+            hasPrevious = true;
+            lastNanos = nanoTime;
+            frames++;
+            lock.notifyAll();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getFrames() {
+        synchronized (lock) {
+            return frames;
+        }
+    }
+
+    public long getDroppedFrames() {
+        synchronized (lock) {
+            return droppedFrames;
+        }
+    }
+
+    // Flushes what has been recorded and closes the file.
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try (channel) {
+            while (true) {
+                ByteBuffer pending;
+                boolean finished;
+                synchronized (lock) {
+                    while (front.position() == 0 && !closed) {
+                        lock.wait();
+                    }
+                    finished = closed;
+                    pending = front;
+                    front = back;
+                    back = pending;
+                }
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+                pending.clear();
+                if (finished) {
+                    return;
+                }
+            }
+        } catch (IOException exception) {
+            GLights.LOGGER.warn("Stopped recording LED frames to {}", file, exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+            }
+        }
+    }
+}
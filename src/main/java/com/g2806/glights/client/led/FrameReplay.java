@@ -0,0 +1,86 @@
+package com.g2806.glights.client.led;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a {@link FrameRecorder} file back through a read-only memory mapping, one frame at a time. A recording cut
+ * short by a crash ends at its last complete frame.
+ */
+public final class FrameReplay {
+    private final MappedByteBuffer mapped;
+    private final long startEpochMillis;
+    private ByteBuffer cursor;
+    private long frameMicros;
+    private int frames;
+
+    private FrameReplay(MappedByteBuffer mapped, long startEpochMillis) {
+        this.mapped = mapped;
+        this.startEpochMillis = startEpochMillis;
+        rewind();
+    }
+
+    public static FrameReplay open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.remaining() < FrameRecorder.HEADER_BYTES || mapped.getInt(0) != FrameRecorder.MAGIC) {
+            throw new IOException(file + " is not a GLights frame recording");
+        }
+        if (mapped.get(4) != FrameRecorder.VERSION) {
+            throw new IOException(file + " was recorded by an unsupported version (" + mapped.get(4) + ")");
+        }
+        return new FrameReplay(mapped, mapped.getLong(5));
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    // Time between the frame last returned by next() and the one before it, as recorded.
+    public long getFrameMicros() {
+        return frameMicros;
+    }
+
+    public int getFramesRead() {
+        return frames;
+    }
+
+    public void rewind() {
+        cursor = mapped.duplicate().position(FrameRecorder.HEADER_BYTES);
+        frameMicros = 0;
+        frames = 0;
+    }
+
+    // Applies the next recorded frame on top of into, which must hold the previous one; false at the end.
+    public boolean next(LedFrame into) {
+        if (cursor.remaining() < FrameRecorder.RECORD_HEADER_BYTES) {
+            return false;
+        }
+        int start = cursor.position();
+        int length = cursor.getInt();
+        long micros = cursor.getInt() & 0xFFFFFFFFL;
+        if (length < 0 || length > cursor.remaining()) {
+            cursor.position(start);
+            return false;
+        }
+        ByteBuffer record = cursor.slice(cursor.position(), length);
+        try {
+            FrameStreamCodec.decode(record, into);
+        } catch (BufferUnderflowException exception) {
+            cursor.position(start);
+            return false;
+        }
+        cursor.position(cursor.position() + length);
+        frameMicros = micros;
+        frames++;
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.g2806.glights.client.led;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact encoding for a sequence of frames: each frame is written as the slots that changed since the previous
+ * one. A background change clears every key (as {@link LedFrame#fill} does), so such frames are written against
+ * an empty frame instead and decode with a fill first.
+ */
+public final class FrameStreamCodec {
+    // Worst case: flags, background, effect and every slot of both layers.
+    public static final int MAX_FRAME_BYTES = 1 + 3 + 6 + 2 * (2 + (LedFrame.KEY_SLOTS - 1) * 5);
+
+    private static final int FLAG_MOUSE_MIRROR = 1;
+    private static final int FLAG_FILL = 2;
+    private static final int FLAG_EFFECT = 4;
+    private static final int UNSET_MARKER = 0x8000;
+
+    private FrameStreamCodec() {
+    }
+
+    // Pass null as previous for the first frame of a stream.
+    public static void encode(LedFrame previous, LedFrame current, ByteBuffer out) {
+        boolean fill = previous == null || previous.getBackground() != current.getBackground();
+        boolean effect = previous == null || !previous.sameEffect(current);
+        out.put((byte) ((current.isMouseMirror() ? FLAG_MOUSE_MIRROR : 0) | (fill ? FLAG_FILL : 0) | (effect ? FLAG_EFFECT : 0)));
+        if (fill) {
+            putColor(out, current.getBackground());
+        }
+        if (effect) {
+            out.put((byte) current.getEffect());
+            putColor(out, current.getEffectColor());
+            out.putShort((short) current.getEffectIntervalMs());
+        }
+        encodeLayer(fill ? null : previous, current, false, out);
+        encodeLayer(fill ? null : previous, current, true, out);
+    }
+
+    // Applies one encoded frame on top of into, which must hold the previous frame of the stream.
+    public static void decode(ByteBuffer in, LedFrame into) {
+        int flags = in.get();
+        if ((flags & FLAG_FILL) != 0) {
+            into.fill(getColor(in));
+        }
+        into.setMouseMirror((flags & FLAG_MOUSE_MIRROR) != 0);
+        if ((flags & FLAG_EFFECT) != 0) {
+            int effect = in.get();
+            int color = getColor(in);
+            into.setEffect(effect, color, in.getShort() & 0xFFFF);
+        }
+        decodeLayer(in, into, false);
+        decodeLayer(in, into, true);
+    }
+
+    private static void encodeLayer(LedFrame previous, LedFrame current, boolean keyNames, ByteBuffer out) {
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int count = 0;
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            int was = previous == null ? LedFrame.UNSET : slot(previous, code, keyNames);
+            int now = slot(current, code, keyNames);
+            if (was == now) {
+                continue;
+            }
+            if (now == LedFrame.UNSET) {
+                out.putShort((short) (code | UNSET_MARKER));
+            } else {
+                out.putShort((short) code);
+                putColor(out, now);
+            }
+            count++;
+        }
+        out.putShort(countPosition, (short) count);
+    }
+
+    private static void decodeLayer(ByteBuffer in, LedFrame into, boolean keyNames) {
+        int count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = in.getShort() & 0xFFFF;
+            int code = entry & ~UNSET_MARKER;
+            if ((entry & UNSET_MARKER) != 0) {
+                if (keyNames) {
+                    into.clearKeyName(code);
+                } else {
+                    into.clearScanCode(code);
+                }
+            } else if (keyNames) {
+                into.setKeyName(code, getColor(in));
+            } else {
+                into.setScanCode(code, getColor(in));
+            }
+        }
+    }
+
+    private static int slot(LedFrame frame, int code, boolean keyNames) {
+        return keyNames ? frame.getKeyName(code) : frame.getScanCode(code);
+    }
+
+    private static void putColor(ByteBuffer out, int color) {
+        out.put((byte) (color >> 16));
+        out.put((byte) (color >> 8));
+        out.put((byte) color);
+    }
+
+    private static int getColor(ByteBuffer in) {
+        return ((in.get() & 0xFF) << 16) | ((in.get() & 0xFF) << 8) | (in.get() & 0xFF);
+    }
+}
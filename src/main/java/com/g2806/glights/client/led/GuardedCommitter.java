@@ -0,0 +1,88 @@
+package com.g2806.glights.client.led;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FrameCommitter} behind a {@link CircuitBreaker}. A commit with failed SDK calls counts as a
+ * failure; once the circuit opens, commits are refused until the backoff elapses, then the backend is
+ * re-initialised and the frame rewritten from scratch as the probe.
+ */
+public final class GuardedCommitter {
+    public static final int PAUSED = -1;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long MIN_RETRY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final LedBackend backend;
+    private final FrameCommitter committer;
+    private final CircuitBreaker breaker;
+
+    public GuardedCommitter(LedBackend backend, CircuitBreaker breaker) {
+        this.backend = backend;
+        this.committer = new FrameCommitter(backend);
+        this.breaker = breaker;
+    }
+
+    public static CircuitBreaker defaultBreaker() {
+        return new CircuitBreaker(FAILURE_THRESHOLD, new Backoff(MIN_RETRY_DELAY_NANOS, MAX_RETRY_DELAY_NANOS));
+    }
+
+    // Returns the native calls made, or PAUSED when the frame did not reach the device and must be retried.
+    public int commit(LedFrame frame, long nowNanos) {
+        return commit(frame, nowNanos, FrameCommitter.UNLIMITED);
+    }
+
+    public int commit(LedFrame frame, long nowNanos, int callBudget) {
+        if (breaker.isOpen()) {
+            if (!breaker.allowRequest(nowNanos)) {
+                return PAUSED;
+            }
+            backend.shutdown();
+            if (!backend.init()) {
+                breaker.recordFailure(nowNanos);
+                return PAUSED;
+            }
+            committer.invalidate();
+        }
+
+        int calls = committer.commit(frame, callBudget);
+        if (committer.getLastFailedCalls() > 0) {
+            // The device state is unknown after a partial write, so the next attempt starts over.
+            committer.invalidate();
+            breaker.recordFailure(nowNanos);
+            return PAUSED;
+        }
+        breaker.recordSuccess();
+        return calls;
+    }
+
+    // Opens the circuit after a call outlived the watchdog, whatever it eventually returned.
+    public void tripStalled(long nowNanos) {
+        committer.invalidate();
+        breaker.trip(nowNanos);
+    }
+
+    public void invalidate() {
+        committer.invalidate();
+    }
+
+    public boolean isPaused() {
+        return breaker.isOpen();
+    }
+
+    public long nanosUntilRetry(long nowNanos) {
+        return breaker.nanosUntilRetry(nowNanos);
+    }
+
+    public int getTrips() {
+        return breaker.getTrips();
+    }
+
+    public int getLastDeferredKeys() {
+        return committer.getLastDeferredKeys();
+    }
+
+    public FrameCommitter getCommitter() {
+        return committer;
+    }
+}
@@ -0,0 +1,42 @@
+package com.g2806.glights.client.led;
+
+// Rows of keys a bar widget can fill, by set-1 scan code in the order the bar grows.
+public enum KeyRow {
+    NONE(),
+    FUNCTION(0x3B, 0x3C, 0x3D, 0x3E, 0x3F, 0x40, 0x41, 0x42, 0x43, 0x44, 0x57, 0x58),
+    NUMBER(0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B),
+    // Numpad 0 first, then 1-9, so the bar fills from the bottom up.
+    NUMPAD(0x52, 0x4F, 0x50, 0x51, 0x4B, 0x4C, 0x4D, 0x47, 0x48, 0x49);
+
+    private final int[] scanCodes;
+
+    KeyRow(int... scanCodes) {
+        this.scanCodes = scanCodes;
+    }
+
+    public int size() {
+        return scanCodes.length;
+    }
+
+    public int getScanCode(int index) {
+        return scanCodes[index];
+    }
+
+    public boolean contains(int scanCode) {
+        for (int code : scanCodes) {
+            if (code == scanCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keys lit for a value between 0 and 1. Anything above zero lights at least one key, so a nearly empty bar
+    // never looks like no bar.
+    public int litKeys(float fraction) {
+        if (!(fraction > 0.0F)) {
+            return 0;
+        }
+        return Math.min(scanCodes.length, (int) Math.ceil(fraction * scanCodes.length));
+    }
+}
@@ -0,0 +1,190 @@
+package com.g2806.glights.client.led;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A tenkeyless ANSI keyboard by set-1 scan code, for anything that has to draw a frame as a keyboard.
+public final class KeyboardLayout {
+    public static final int SPACER = 0;
+    // Height of a row in the same quarter-key units as the widths, so positions on both axes compare.
+    public static final int ROW_QUARTERS = 4;
+
+    // Widths are in quarter-key units so 1.25u and 1.75u modifiers stay exact.
+    private static final Object[][][] TKL_ANSI = {
+            {
+                    {"Esc", 0x01, 4}, {"", SPACER, 4}, {"F1", 0x3B, 4}, {"F2", 0x3C, 4}, {"F3", 0x3D, 4}, {"F4", 0x3E, 4},
+                    {"", SPACER, 2}, {"F5", 0x3F, 4}, {"F6", 0x40, 4}, {"F7", 0x41, 4}, {"F8", 0x42, 4},
+                    {"", SPACER, 2}, {"F9", 0x43, 4}, {"F10", 0x44, 4}, {"F11", 0x57, 4}, {"F12", 0x58, 4},
+                    {"", SPACER, 1}, {"Prt", 0x137, 4}, {"Scr", 0x46, 4}, {"Pau", 0x45, 4}
+            },
+            {
+                    {"`", 0x29, 4}, {"1", 0x02, 4}, {"2", 0x03, 4}, {"3", 0x04, 4}, {"4", 0x05, 4}, {"5", 0x06, 4},
+                    {"6", 0x07, 4}, {"7", 0x08, 4}, {"8", 0x09, 4}, {"9", 0x0A, 4}, {"0", 0x0B, 4}, {"-", 0x0C, 4},
+                    {"=", 0x0D, 4}, {"Bksp", 0x0E, 8},
+                    {"", SPACER, 1}, {"Ins", 0x152, 4}, {"Hom", 0x147, 4}, {"PgU", 0x149, 4}
+            },
+            {
+                    {"Tab", 0x0F, 6}, {"Q", 0x10, 4}, {"W", 0x11, 4}, {"E", 0x12, 4}, {"R", 0x13, 4}, {"T", 0x14, 4},
+                    {"Y", 0x15, 4}, {"U", 0x16, 4}, {"I", 0x17, 4}, {"O", 0x18, 4}, {"P", 0x19, 4}, {"[", 0x1A, 4},
+                    {"]", 0x1B, 4}, {"\\", 0x2B, 6},
+                    {"", SPACER, 1}, {"Del", 0x153, 4}, {"End", 0x14F, 4}, {"PgD", 0x151, 4}
+            },
+            {
+                    {"Caps", 0x3A, 7}, {"A", 0x1E, 4}, {"S", 0x1F, 4}, {"D", 0x20, 4}, {"F", 0x21, 4}, {"G", 0x22, 4},
+                    {"H", 0x23, 4}, {"J", 0x24, 4}, {"K", 0x25, 4}, {"L", 0x26, 4}, {";", 0x27, 4}, {"'", 0x28, 4},
+                    {"Enter", 0x1C, 9}
+            },
+            {
+                    {"Shift", 0x2A, 9}, {"Z", 0x2C, 4}, {"X", 0x2D, 4}, {"C", 0x2E, 4}, {"V", 0x2F, 4}, {"B", 0x30, 4},
+                    {"N", 0x31, 4}, {"M", 0x32, 4}, {",", 0x33, 4}, {".", 0x34, 4}, {"/", 0x35, 4}, {"Shift", 0x36, 11},
+                    {"", SPACER, 5}, {"Up", 0x148, 4}
+            },
+            {
+                    {"Ctrl", 0x1D, 5}, {"Win", 0x15B, 5}, {"Alt", 0x38, 5}, {"Space", 0x39, 25}, {"Alt", 0x138, 5},
+                    {"Win", 0x15C, 5}, {"Menu", 0x15D, 5}, {"Ctrl", 0x11D, 5},
+                    {"", SPACER, 1}, {"Lt", 0x14B, 4}, {"Dn", 0x150, 4}, {"Rt", 0x14D, 4}
+            }
+    };
+
+    private static final KeyboardLayout TKL = build(TKL_ANSI);
+
+    private final List<List<Key>> rows;
+    private final List<Key> keys;
+    private final int width;
+
+    private KeyboardLayout(List<List<Key>> rows) {
+        this.rows = rows;
+        List<Key> keys = new ArrayList<>();
+        int width = 0;
+        for (List<Key> row : rows) {
+            for (Key key : row) {
+                if (!key.isSpacer()) {
+                    keys.add(key);
+                }
+            }
+            Key last = row.get(row.size() - 1);
+            width = Math.max(width, last.getColumn() + last.getQuarterWidth());
+        }
+        this.keys = List.copyOf(keys);
+        this.width = width;
+    }
+
+    public static KeyboardLayout tenkeyless() {
+        return TKL;
+    }
+
+    public List<List<Key>> getRows() {
+        return rows;
+    }
+
+    // Every real key in reading order, without spacers.
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    // Scan codes of getKeys(), in the same order.
+    public int[] getScanCodes() {
+        int[] result = new int[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = keys.get(i).getScanCode();
+        }
+        return result;
+    }
+
+    // Width of the widest row, in quarter keys.
+    public int getWidth() {
+        return width;
+    }
+
+    // Height of the board, in quarter keys.
+    public int getHeight() {
+        return rows.size() * ROW_QUARTERS;
+    }
+
+    // Scan code of the key with this label, ignoring case, or -1. Repeated labels (Shift, Ctrl, ...) name the left key.
+    public int scanCodeOf(String label) {
+        for (List<Key> row : rows) {
+            for (Key key : row) {
+                if (!key.isSpacer() && key.getLabel().equalsIgnoreCase(label)) {
+                    return key.getScanCode();
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Label that scanCodeOf() maps back to this scan code, or null when the key has none.
+    public String labelOf(int scanCode) {
+        for (List<Key> row : rows) {
+            for (Key key : row) {
+                if (!key.isSpacer() && key.getScanCode() == scanCode) {
+                    return scanCodeOf(key.getLabel()) == scanCode ? key.getLabel() : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static KeyboardLayout build(Object[][][] table) {
+        List<List<Key>> rows = new ArrayList<>(table.length);
+        for (Object[][] row : table) {
+            List<Key> keys = new ArrayList<>(row.length);
+            int column = 0;
+            for (Object[] key : row) {
+                keys.add(new Key((String) key[0], (Integer) key[1], (Integer) key[2], rows.size(), column));
+                column += (Integer) key[2];
+            }
+            rows.add(List.copyOf(keys));
+        }
+        return new KeyboardLayout(List.copyOf(rows));
+    }
+
+    public static final class Key {
+        private final String label;
+        private final int scanCode;
+        private final int quarterWidth;
+        private final int row;
+        private final int column;
+
+        private Key(String label, int scanCode, int quarterWidth, int row, int column) {
+            this.label = label;
+            this.scanCode = scanCode;
+            this.quarterWidth = quarterWidth;
+            this.row = row;
+            this.column = column;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getScanCode() {
+            return scanCode;
+        }
+
+        public int getQuarterWidth() {
+            return quarterWidth;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        // Left edge, in quarter keys from the start of the row.
+        public int getColumn() {
+            return column;
+        }
+
+        public double getCenterX() {
+            return column + quarterWidth / 2.0;
+        }
+
+        public double getCenterY() {
+            return row * ROW_QUARTERS + ROW_QUARTERS / 2.0;
+        }
+
+        public boolean isSpacer() {
+            return scanCode == SPACER;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.g2806.glights.client.led;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in microseconds: 16 buckets per power of two, so any reported percentile is
+ * within about 6% of the true value. Recording is lock-free and allocation-free and may happen on any thread.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Latencies from 1 us up to 2^31 us (about 36 minutes); anything longer lands in the last bucket.
+    private static final int MAX_EXPONENT = 31;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0L, nanos / 1_000);
+        counts.incrementAndGet(bucketOf(micros));
+        total.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long count = total.get();
+        return count == 0 ? 0.0 : sumMicros.get() / (double) count;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), or 0 when nothing was recorded.
+    public long getPercentileMicros(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long upperMicros, long count);
+    }
+
+    // Visits the non-empty buckets in ascending order.
+    public void forEachBucket(BucketVisitor visitor) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = counts.get(bucket);
+            if (count != 0L) {
+                visitor.visit(upperBoundOf(bucket), count);
+            }
+        }
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0L);
+        }
+        total.set(0L);
+        sumMicros.set(0L);
+        maxMicros.set(0L);
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "%s: n=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", name, getCount(),
+                getMeanMicros() / 1_000.0, getPercentileMicros(50) / 1_000.0, getPercentileMicros(90) / 1_000.0,
+                getPercentileMicros(99) / 1_000.0, getMaxMicros() / 1_000.0);
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && micros >= (1L << (MAX_EXPONENT + 1))) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
@@ -0,0 +1,72 @@
+package com.g2806.glights.client.led;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// One latency histogram per LightEvent, from the event to the device accepting the frame that shows it.
+public final class LatencyStats {
+    private static final LightEvent[] EVENTS = LightEvent.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[LightEvent.COUNT];
+
+    public LatencyStats() {
+        for (LightEvent event : EVENTS) {
+            histograms[event.ordinal()] = new LatencyHistogram(event.getLabel());
+        }
+    }
+
+    public LatencyHistogram get(LightEvent event) {
+        return histograms[event.ordinal()];
+    }
+
+    // Records every event stamped on a frame that has just reached the device.
+    public void recordCommitted(LedFrame frame, long now) {
+        if (!frame.hasEvents()) {
+            return;
+        }
+        for (LightEvent event : EVENTS) {
+            long stamped = frame.getEventNanos(event);
+            if (stamped != 0L) {
+                histograms[event.ordinal()].recordNanos(now - stamped);
+            }
+        }
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    public List<String> summaries() {
+        List<String> lines = new ArrayList<>(histograms.length);
+        for (LatencyHistogram histogram : histograms) {
+            lines.add(histogram.summary());
+        }
+        return lines;
+    }
+
+    // Summaries followed by every non-empty bucket, so distributions can be compared between machines.
+    public void dump(Path file) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# GLights event-to-LED latency, ").append(Instant.now()).append('\n');
+        for (LatencyHistogram histogram : histograms) {
+            out.append("# ").append(histogram.summary()).append('\n');
+        }
+        out.append("event,bucket_upper_us,count\n");
+        for (LatencyHistogram histogram : histograms) {
+            histogram.forEachBucket((upperMicros, count) -> out.append(histogram.getName()).append(',')
+                    .append(upperMicros).append(',').append(count).append('\n'));
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, out, StandardCharsets.UTF_8);
+    }
+}
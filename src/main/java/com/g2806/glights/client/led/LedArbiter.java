@@ -0,0 +1,96 @@
+package com.g2806.glights.client.led;
+
+import com.g2806.glights.GLights;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which of several game instances on this machine drives the LEDs. The owner's pid lives in a
+ * small memory-mapped control block shared by every instance, so claiming is one store and checking is
+ * one load; nobody touches the SDK to find out who owns it.
+ */
+public final class LedArbiter {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x474C494748545331L;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int OWNER_OFFSET = 8;
+    private static final int BLOCK_BYTES = 16;
+    private static final long NO_OWNER = 0L;
+    private static final long LIVENESS_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long pid = ProcessHandle.current().pid();
+    private final MappedByteBuffer block;
+    private long checkedOwner = NO_OWNER;
+    private long nextLivenessCheckNanos;
+
+    private LedArbiter(MappedByteBuffer block) {
+        this.block = block;
+    }
+
+    // Falls back to an arbiter that always owns the LEDs when the control block cannot be mapped.
+    public static LedArbiter open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_WRITE, 0, BLOCK_BYTES);
+            if ((long) LONGS.getVolatile(block, MAGIC_OFFSET) != MAGIC) {
+                LONGS.setVolatile(block, OWNER_OFFSET, NO_OWNER);
+                LONGS.setVolatile(block, MAGIC_OFFSET, MAGIC);
+            }
+            return new LedArbiter(block);
+        } catch (IOException | UnsupportedOperationException exception) {
+            GLights.LOGGER.warn("Unable to map LED arbitration block {}; this instance will always drive the LEDs", file, exception);
+            return new LedArbiter(null);
+        }
+    }
+
+    public boolean isOwner() {
+        return block == null || owner() == pid;
+    }
+
+    // Takes the LEDs over unconditionally; the previous owner notices on its next commit.
+    public void claim() {
+        if (block != null) {
+            LONGS.setVolatile(block, OWNER_OFFSET, pid);
+        }
+    }
+
+    // Claims only when nobody owns the LEDs or the owning process has gone away.
+    public boolean claimIfVacant() {
+        if (isOwner()) {
+            return true;
+        }
+        long current = owner();
+        if (current != NO_OWNER) {
+            long now = System.nanoTime();
+            if (current == checkedOwner && now - nextLivenessCheckNanos < 0) {
+                return false;
+            }
+            checkedOwner = current;
+            nextLivenessCheckNanos = now + LIVENESS_CHECK_INTERVAL_NANOS;
+            if (ProcessHandle.of(current).map(ProcessHandle::isAlive).orElse(false)) {
+                return false;
+            }
+        }
+        if (!LONGS.compareAndSet(block, OWNER_OFFSET, current, pid)) {
+            return isOwner();
+        }
+        return true;
+    }
+
+    public void release() {
+        if (block != null) {
+            LONGS.compareAndSet(block, OWNER_OFFSET, pid, NO_OWNER);
+        }
+    }
+
+    private long owner() {
+        return (long) LONGS.getVolatile(block, OWNER_OFFSET);
+    }
+}
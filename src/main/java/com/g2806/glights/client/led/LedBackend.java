@@ -0,0 +1,22 @@
+package com.g2806.glights.client.led;
+
+// Raw lighting SDK surface. Colors are percentages (0-100) per channel, matching the Logitech LED SDK.
+public interface LedBackend {
+    boolean init();
+
+    boolean setTargetDevice(int targetDevice);
+
+    boolean setLighting(int red, int green, int blue);
+
+    boolean setLightingForKeyWithScanCode(int scanCode, int red, int green, int blue);
+
+    boolean setLightingForKeyWithKeyName(int keyName, int red, int green, int blue);
+
+    boolean flashLighting(int red, int green, int blue, int durationMs, int intervalMs);
+
+    boolean pulseLighting(int red, int green, int blue, int durationMs, int intervalMs);
+
+    boolean stopEffects();
+
+    void shutdown();
+}
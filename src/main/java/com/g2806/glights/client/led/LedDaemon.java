@@ -0,0 +1,148 @@
+package com.g2806.glights.client.led;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Helper process that owns the lighting SDK on behalf of the game. It connects back to the
+ * game's socket, applies only the newest frame from each read and exits once the game goes away,
+ * so a native hang or crash never reaches the client thread. A release message shuts the SDK down
+ * until the next frame arrives, so an unfocused game keeps its helper without holding the device.
+ */
+public final class LedDaemon {
+    public static final String BACKEND_LOGITECH = "logitech";
+    public static final String BACKEND_RECORDING = "recording";
+    public static final int EXIT_USAGE = 64;
+    public static final int EXIT_INIT_FAILED = 2;
+
+    private LedDaemon() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: LedDaemon <socket> <" + BACKEND_LOGITECH + "|" + BACKEND_RECORDING + ">");
+            System.exit(EXIT_USAGE);
+        }
+
+        LedBackend backend = BACKEND_RECORDING.equals(args[1]) ? new RecordingLedBackend() : new LogiLedBackend();
+        boolean initialised;
+        try {
+            initialised = backend.init();
+        } catch (LinkageError error) {
+            System.err.println("[GLights LED helper] Unable to load lighting SDK: " + error);
+            initialised = false;
+        }
+        if (!initialised) {
+            System.exit(EXIT_INIT_FAILED);
+        }
+
+        try {
+            serve(Path.of(args[0]), backend);
+        } catch (IOException exception) {
+            System.err.println("[GLights LED helper] Connection lost: " + exception.getMessage());
+        }
+        System.exit(0);
+    }
+
+    // A corrupt length means the stream has lost its framing and nothing after it can be trusted; ending the session
+    // lets the game restart the helper, which replays the newest full frame.
+    private static int nextMessage(ByteBuffer inbound) throws IOException {
+        try {
+            return LedFrameCodec.peekMessage(inbound);
+        } catch (IllegalStateException exception) {
+            throw new IOException(exception.getMessage(), exception);
+        }
+    }
+
+    // Called with the backend initialised; shuts it down on the way out if it still is.
+    private static void serve(Path socketPath, LedBackend backend) throws IOException {
+        GuardedCommitter committer = new GuardedCommitter(backend, GuardedCommitter.defaultBreaker());
+        LedFrame frame = new LedFrame();
+        boolean dirty = false;
+        int callBudget = FrameCommitter.UNLIMITED;
+        ByteBuffer inbound = ByteBuffer.allocate(LedFrameCodec.MAX_MESSAGE_BYTES * 4);
+        ByteBuffer outbound = ByteBuffer.allocate(64);
+        boolean initialised = true;
+        // Acks carry the newest frame the SDK accepted, so the game never times latency for a frame it refused.
+        int receivedSequence = -1;
+        int appliedSequence = -1;
+
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+            while (true) {
+                if (channel.read(inbound) < 0) {
+                    return;
+                }
+                inbound.flip();
+                boolean frameReceived = false;
+                boolean resync = false;
+                boolean heartbeatReceived = false;
+                boolean releaseReceived = false;
+                while (nextMessage(inbound) > 0) {
+                    byte type = LedFrameCodec.peekType(inbound);
+                    if (type == LedFrameCodec.TYPE_FRAME) {
+                        resync |= LedFrameCodec.peekResync(inbound);
+                        callBudget = LedFrameCodec.peekCallBudget(inbound);
+                        receivedSequence = LedFrameCodec.decodeFrame(inbound, frame);
+                        frameReceived = true;
+                        releaseReceived = false;
+                    } else if (type == LedFrameCodec.TYPE_RELEASE) {
+                        LedFrameCodec.skipMessage(inbound);
+                        releaseReceived = true;
+                        frameReceived = false;
+                        dirty = false;
+                    } else {
+                        heartbeatReceived |= type == LedFrameCodec.TYPE_HEARTBEAT;
+                        LedFrameCodec.skipMessage(inbound);
+                    }
+                }
+                inbound.compact();
+
+                if (releaseReceived && initialised) {
+                    backend.shutdown();
+                    initialised = false;
+                }
+                if (!frameReceived && !heartbeatReceived) {
+                    continue;
+                }
+                if (frameReceived && !initialised) {
+                    if (!backend.init()) {
+                        System.exit(EXIT_INIT_FAILED);
+                    }
+                    initialised = true;
+                    resync = true;
+                }
+                if (resync) {
+                    committer.invalidate();
+                }
+                // Heartbeats double as retry ticks for a frame the paused SDK has not taken yet, and for keys
+                // the call budget held back.
+                dirty |= frameReceived;
+                int calls = 0;
+                if (dirty && initialised) {
+                    calls = committer.commit(frame, System.nanoTime(), callBudget);
+                    if (calls == GuardedCommitter.PAUSED) {
+                        calls = 0;
+                    } else {
+                        appliedSequence = receivedSequence;
+                        dirty = committer.getLastDeferredKeys() > 0;
+                    }
+                }
+                outbound.clear();
+                LedFrameCodec.encodeAck(appliedSequence, calls, outbound);
+                outbound.flip();
+                while (outbound.hasRemaining()) {
+                    channel.write(outbound);
+                }
+            }
+        } finally {
+            if (initialised) {
+                backend.shutdown();
+            }
+        }
+    }
+}
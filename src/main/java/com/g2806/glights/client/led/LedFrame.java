@@ -0,0 +1,256 @@
+package com.g2806.glights.client.led;
+
+import java.util.Arrays;
+
+public final class LedFrame {
+    public static final int KEY_SLOTS = 0x200;
+    public static final int UNSET = -1;
+
+    public static final int EFFECT_NONE = 0;
+    public static final int EFFECT_FLASH = 1;
+    public static final int EFFECT_PULSE = 2;
+
+    // Commit priority of a key write when a native-call budget is in force; see FrameCommitter.
+    public static final int PRIORITY_AMBIENT = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_CRITICAL = 2;
+
+    private final int[] scanColors = new int[KEY_SLOTS];
+    private final int[] keyNameColors = new int[KEY_SLOTS];
+    private final byte[] scanPriorities = new byte[KEY_SLOTS];
+    private final byte[] keyNamePriorities = new byte[KEY_SLOTS];
+    private int drawPriority = PRIORITY_NORMAL;
+    private int background;
+    private boolean mouseMirror = true;
+    private int effect = EFFECT_NONE;
+    private int effectColor;
+    private int effectIntervalMs;
+    private int version;
+    private final long[] eventNanos = new long[LightEvent.COUNT];
+    private boolean hasEvents;
+
+    public LedFrame() {
+        fill(0x000000);
+    }
+
+    public static boolean inRange(int code) {
+        return code > 0 && code < KEY_SLOTS;
+    }
+
+    // A whole-device write resets every key on the hardware, so the per-key layer is dropped as well.
+    public void fill(int color) {
+        background = color & 0xFFFFFF;
+        Arrays.fill(scanColors, UNSET);
+        Arrays.fill(keyNameColors, UNSET);
+        Arrays.fill(scanPriorities, (byte) PRIORITY_NORMAL);
+        Arrays.fill(keyNamePriorities, (byte) PRIORITY_NORMAL);
+        version++;
+    }
+
+    // Changes only the fill behind unset keys; the per-key layer is kept and replayed over the new fill on commit.
+    public void setBackground(int color) {
+        if (background != (color & 0xFFFFFF)) {
+            background = color & 0xFFFFFF;
+            version++;
+        }
+    }
+
+    // Key writes that follow are tagged with this priority until it is changed again.
+    public void setDrawPriority(int priority) {
+        drawPriority = priority;
+    }
+
+    public void setScanCode(int scanCode, int color) {
+        setScanCode(scanCode, color, drawPriority);
+    }
+
+    public void setScanCode(int scanCode, int color, int priority) {
+        if (inRange(scanCode)) {
+            scanColors[scanCode] = color & 0xFFFFFF;
+            scanPriorities[scanCode] = (byte) priority;
+            version++;
+        }
+    }
+
+    public void setKeyName(int keyName, int color) {
+        setKeyName(keyName, color, drawPriority);
+    }
+
+    public void setKeyName(int keyName, int color, int priority) {
+        if (inRange(keyName)) {
+            keyNameColors[keyName] = color & 0xFFFFFF;
+            keyNamePriorities[keyName] = (byte) priority;
+            version++;
+        }
+    }
+
+    public void clearScanCode(int scanCode) {
+        clearScanCode(scanCode, drawPriority);
+    }
+
+    public void clearScanCode(int scanCode, int priority) {
+        if (inRange(scanCode)) {
+            scanColors[scanCode] = UNSET;
+            scanPriorities[scanCode] = (byte) priority;
+            version++;
+        }
+    }
+
+    public void clearKeyName(int keyName) {
+        clearKeyName(keyName, drawPriority);
+    }
+
+    public void clearKeyName(int keyName, int priority) {
+        if (inRange(keyName)) {
+            keyNameColors[keyName] = UNSET;
+            keyNamePriorities[keyName] = (byte) priority;
+            version++;
+        }
+    }
+
+    public void setMouseMirror(boolean mouseMirror) {
+        if (this.mouseMirror != mouseMirror) {
+            this.mouseMirror = mouseMirror;
+            version++;
+        }
+    }
+
+    public void setEffect(int effect, int color, int intervalMs) {
+        this.effect = effect;
+        this.effectColor = effect == EFFECT_NONE ? 0 : color & 0xFFFFFF;
+        this.effectIntervalMs = effect == EFFECT_NONE ? 0 : intervalMs;
+        version++;
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    public int getScanCode(int scanCode) {
+        return inRange(scanCode) ? scanColors[scanCode] : UNSET;
+    }
+
+    public int getKeyName(int keyName) {
+        return inRange(keyName) ? keyNameColors[keyName] : UNSET;
+    }
+
+    public int getScanPriority(int scanCode) {
+        return inRange(scanCode) ? scanPriorities[scanCode] : PRIORITY_NORMAL;
+    }
+
+    public int getKeyNamePriority(int keyName) {
+        return inRange(keyName) ? keyNamePriorities[keyName] : PRIORITY_NORMAL;
+    }
+
+    // The color a scan code actually shows, falling back to the background fill.
+    public int resolveScanCode(int scanCode) {
+        int color = getScanCode(scanCode);
+        return color == UNSET ? background : color;
+    }
+
+    public boolean isMouseMirror() {
+        return mouseMirror;
+    }
+
+    public int getEffect() {
+        return effect;
+    }
+
+    public int getEffectColor() {
+        return effectColor;
+    }
+
+    public int getEffectIntervalMs() {
+        return effectIntervalMs;
+    }
+
+    public boolean sameEffect(LedFrame other) {
+        return effect == other.effect && effectColor == other.effectColor && effectIntervalMs == other.effectIntervalMs;
+    }
+
+    // Bumped on every mutation so callers can skip commits when nothing was drawn.
+    public int getVersion() {
+        return version;
+    }
+
+    // System.nanoTime() of the earliest event of each kind this frame answers, kept until it is handed to an output.
+    public void stampEvent(LightEvent event, long nanos) {
+        stampSlot(event.ordinal(), nanos);
+    }
+
+    private void stampSlot(int slot, long nanos) {
+        if (eventNanos[slot] == 0L || nanos - eventNanos[slot] < 0) {
+            eventNanos[slot] = nanos;
+        }
+        hasEvents = true;
+    }
+
+    public long getEventNanos(LightEvent event) {
+        return eventNanos[event.ordinal()];
+    }
+
+    public boolean hasEvents() {
+        return hasEvents;
+    }
+
+    public void clearEvents() {
+        if (hasEvents) {
+            Arrays.fill(eventNanos, 0L);
+            hasEvents = false;
+        }
+    }
+
+    // Keeps the earlier stamps of a frame this one replaces before the device saw it.
+    public void inheritEvents(long[] earlier) {
+        for (int slot = 0; slot < LightEvent.COUNT; slot++) {
+            if (earlier[slot] != 0L) {
+                stampSlot(slot, earlier[slot]);
+            }
+        }
+    }
+
+    public void copyEventsTo(long[] into) {
+        System.arraycopy(eventNanos, 0, into, 0, LightEvent.COUNT);
+    }
+
+    // Scales every color in the frame to the given brightness, 0-100 percent; unset keys stay unset.
+    public void dim(int percent) {
+        if (percent >= 100) {
+            return;
+        }
+        background = scale(background, percent);
+        effectColor = scale(effectColor, percent);
+        for (int code = 1; code < KEY_SLOTS; code++) {
+            if (scanColors[code] != UNSET) {
+                scanColors[code] = scale(scanColors[code], percent);
+            }
+            if (keyNameColors[code] != UNSET) {
+                keyNameColors[code] = scale(keyNameColors[code], percent);
+            }
+        }
+        version++;
+    }
+
+    // One color at the given brightness, 0-100 percent.
+    public static int scale(int color, int percent) {
+        int red = (color >> 16 & 0xFF) * percent / 100;
+        int green = (color >> 8 & 0xFF) * percent / 100;
+        int blue = (color & 0xFF) * percent / 100;
+        return red << 16 | green << 8 | blue;
+    }
+
+    public void copyFrom(LedFrame other) {
+        System.arraycopy(other.eventNanos, 0, eventNanos, 0, LightEvent.COUNT);
+        hasEvents = other.hasEvents;
+        background = other.background;
+        mouseMirror = other.mouseMirror;
+        effect = other.effect;
+        effectColor = other.effectColor;
+        effectIntervalMs = other.effectIntervalMs;
+        System.arraycopy(other.scanColors, 0, scanColors, 0, KEY_SLOTS);
+        System.arraycopy(other.keyNameColors, 0, keyNameColors, 0, KEY_SLOTS);
+        System.arraycopy(other.scanPriorities, 0, scanPriorities, 0, KEY_SLOTS);
+        System.arraycopy(other.keyNamePriorities, 0, keyNamePriorities, 0, KEY_SLOTS);
+        version++;
+    }
+}
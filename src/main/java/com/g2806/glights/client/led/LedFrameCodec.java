@@ -0,0 +1,168 @@
+package com.g2806.glights.client.led;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between the game and the LED helper process. Every message is
+ * {@code u16 length | u8 type | payload}; frames carry the full device state so the
+ * newest one always supersedes anything still queued.
+ */
+public final class LedFrameCodec {
+    public static final byte TYPE_FRAME = 1;
+    public static final byte TYPE_HEARTBEAT = 2;
+    public static final byte TYPE_ACK = 3;
+    public static final byte TYPE_RELEASE = 4;
+
+    public static final int HEADER_BYTES = 3;
+    private static final int KEY_ENTRY_BYTES = 5;
+    private static final int FRAME_FIXED_BYTES = 4 + 1 + 3 + 1 + 3 + 2 + 2 + 2 + 2;
+    private static final int BUDGET_OFFSET = HEADER_BYTES + 4 + 1 + 3 + 1 + 3 + 2;
+    // Key codes fit in 9 bits, so the commit priority rides in the spare high bits of each entry.
+    private static final int PRIORITY_SHIFT = 12;
+    private static final int CODE_MASK = (1 << PRIORITY_SHIFT) - 1;
+    public static final int MAX_MESSAGE_BYTES = HEADER_BYTES + FRAME_FIXED_BYTES + 2 * (LedFrame.KEY_SLOTS - 1) * KEY_ENTRY_BYTES;
+
+    private static final int FLAG_MOUSE_MIRROR = 1;
+    private static final int FLAG_RESYNC = 2;
+
+    private LedFrameCodec() {
+    }
+
+    // A resync frame tells the helper to rewrite the whole device instead of diffing against its last commit.
+    public static void encodeFrame(LedFrame frame, int sequence, boolean resync, int callBudget, ByteBuffer out) {
+        int start = out.position();
+        out.position(start + HEADER_BYTES);
+        out.putInt(sequence);
+        out.put((byte) ((frame.isMouseMirror() ? FLAG_MOUSE_MIRROR : 0) | (resync ? FLAG_RESYNC : 0)));
+        putColor(out, frame.getBackground());
+        out.put((byte) frame.getEffect());
+        putColor(out, frame.getEffectColor());
+        out.putShort((short) frame.getEffectIntervalMs());
+        out.putShort((short) Math.min(Math.max(callBudget, 0), 0xFFFF));
+
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int count = 0;
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            int color = frame.getScanCode(code);
+            if (color != LedFrame.UNSET) {
+                out.putShort((short) (code | frame.getScanPriority(code) << PRIORITY_SHIFT));
+                putColor(out, color);
+                count++;
+            }
+        }
+        out.putShort(countPosition, (short) count);
+
+        countPosition = out.position();
+        out.putShort((short) 0);
+        count = 0;
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            int color = frame.getKeyName(code);
+            if (color != LedFrame.UNSET) {
+                out.putShort((short) (code | frame.getKeyNamePriority(code) << PRIORITY_SHIFT));
+                putColor(out, color);
+                count++;
+            }
+        }
+        out.putShort(countPosition, (short) count);
+        writeHeader(out, start, TYPE_FRAME);
+    }
+
+    public static void encodeHeartbeat(ByteBuffer out) {
+        int start = out.position();
+        out.position(start + HEADER_BYTES);
+        writeHeader(out, start, TYPE_HEARTBEAT);
+    }
+
+    // Tells the helper to hand the device back until the next frame, without ending the session.
+    public static void encodeRelease(ByteBuffer out) {
+        int start = out.position();
+        out.position(start + HEADER_BYTES);
+        writeHeader(out, start, TYPE_RELEASE);
+    }
+
+    public static void encodeAck(int sequence, int nativeCalls, ByteBuffer out) {
+        int start = out.position();
+        out.position(start + HEADER_BYTES);
+        out.putInt(sequence);
+        out.putShort((short) Math.min(nativeCalls, 0xFFFF));
+        writeHeader(out, start, TYPE_ACK);
+    }
+
+    // Returns the length of the next complete message in a flipped buffer, or -1 when more bytes are needed.
+    public static int peekMessage(ByteBuffer in) {
+        if (in.remaining() < HEADER_BYTES) {
+            return -1;
+        }
+        int length = in.getShort(in.position()) & 0xFFFF;
+        if (length < HEADER_BYTES) {
+            throw new IllegalStateException("Corrupt LED message length " + length);
+        }
+        return in.remaining() >= length ? length : -1;
+    }
+
+    public static byte peekType(ByteBuffer in) {
+        return in.get(in.position() + 2);
+    }
+
+    public static void skipMessage(ByteBuffer in) {
+        in.position(in.position() + (in.getShort(in.position()) & 0xFFFF));
+    }
+
+    public static boolean peekResync(ByteBuffer in) {
+        return (in.get(in.position() + HEADER_BYTES + 4) & FLAG_RESYNC) != 0;
+    }
+
+    public static int peekCallBudget(ByteBuffer in) {
+        return in.getShort(in.position() + BUDGET_OFFSET) & 0xFFFF;
+    }
+
+    public static int decodeFrame(ByteBuffer in, LedFrame into) {
+        int end = in.position() + (in.getShort(in.position()) & 0xFFFF);
+        in.position(in.position() + HEADER_BYTES);
+        int sequence = in.getInt();
+        int flags = in.get();
+        into.fill(getColor(in));
+        into.setMouseMirror((flags & FLAG_MOUSE_MIRROR) != 0);
+        int effect = in.get();
+        int effectColor = getColor(in);
+        into.setEffect(effect, effectColor, in.getShort() & 0xFFFF);
+        in.getShort();
+        int count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = in.getShort() & 0xFFFF;
+            into.setScanCode(entry & CODE_MASK, getColor(in), entry >>> PRIORITY_SHIFT);
+        }
+        count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = in.getShort() & 0xFFFF;
+            into.setKeyName(entry & CODE_MASK, getColor(in), entry >>> PRIORITY_SHIFT);
+        }
+        in.position(end);
+        return sequence;
+    }
+
+    // Fills out with {sequence, nativeCalls}.
+    public static void decodeAck(ByteBuffer in, int[] out) {
+        int end = in.position() + (in.getShort(in.position()) & 0xFFFF);
+        in.position(in.position() + HEADER_BYTES);
+        out[0] = in.getInt();
+        out[1] = in.getShort() & 0xFFFF;
+        in.position(end);
+    }
+
+    private static void writeHeader(ByteBuffer out, int start, byte type) {
+        out.putShort(start, (short) (out.position() - start));
+        out.put(start + 2, type);
+    }
+
+    private static void putColor(ByteBuffer out, int color) {
+        out.put((byte) (color >> 16));
+        out.put((byte) (color >> 8));
+        out.put((byte) color);
+    }
+
+    private static int getColor(ByteBuffer in) {
+        return ((in.get() & 0xFF) << 16) | ((in.get() & 0xFF) << 8) | (in.get() & 0xFF);
+    }
+}
@@ -0,0 +1,40 @@
+package com.g2806.glights.client.led;
+
+public interface LedOutput {
+    // Starts the output without waiting on the device; false only when it cannot be started at all.
+    boolean open();
+
+    // True once the device accepted initialisation since the last open().
+    default boolean isReady() {
+        return true;
+    }
+
+    // True once the device refused initialisation; the output has stopped and may be opened again.
+    default boolean hasFailed() {
+        return false;
+    }
+
+    // Waits up to the timeout for the device to come up and returns isReady(); never call it from a per-tick path.
+    default boolean awaitReady(long timeoutNanos) {
+        return isReady();
+    }
+
+    // Hands over the latest frame; implementations diff it against what the device already shows.
+    void submit(LedFrame frame);
+
+    // Forgets what the device is believed to show, e.g. after another instance drew over it.
+    void invalidate();
+
+    // Records, for the events stamped on each frame, how long until the device accepted it; null stops recording.
+    void setLatencyStats(LatencyStats stats);
+
+    // Caps native calls per commit for keys below critical priority; FrameCommitter.UNLIMITED lifts the cap.
+    void setNativeCallBudget(int budget);
+
+    // Hands the device back while keeping the output ready for the next open(), e.g. while the window is unfocused.
+    default void release() {
+        close();
+    }
+
+    void close();
+}
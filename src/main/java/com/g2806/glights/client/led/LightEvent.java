@@ -0,0 +1,21 @@
+package com.g2806.glights.client.led;
+
+// Game events whose time to reach the device is measured; frames carry one timestamp slot per event.
+public enum LightEvent {
+    HOTBAR("hotbar change"),
+    DAMAGE("damage"),
+    EFFECT("effect applied"),
+    DEATH("death");
+
+    public static final int COUNT = values().length;
+
+    private final String label;
+
+    LightEvent(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
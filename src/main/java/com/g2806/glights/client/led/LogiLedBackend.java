@@ -0,0 +1,50 @@
+package com.g2806.glights.client.led;
+
+import com.logitech.gaming.LogiLED;
+
+public final class LogiLedBackend implements LedBackend {
+    @Override
+    public boolean init() {
+        return LogiLED.LogiLedInit();
+    }
+
+    @Override
+    public boolean setTargetDevice(int targetDevice) {
+        return LogiLED.LogiLedSetTargetDevice(targetDevice);
+    }
+
+    @Override
+    public boolean setLighting(int red, int green, int blue) {
+        return LogiLED.LogiLedSetLighting(red, green, blue);
+    }
+
+    @Override
+    public boolean setLightingForKeyWithScanCode(int scanCode, int red, int green, int blue) {
+        return LogiLED.LogiLedSetLightingForKeyWithScanCode(scanCode, red, green, blue);
+    }
+
+    @Override
+    public boolean setLightingForKeyWithKeyName(int keyName, int red, int green, int blue) {
+        return LogiLED.LogiLedSetLightingForKeyWithKeyName(keyName, red, green, blue);
+    }
+
+    @Override
+    public boolean flashLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        return LogiLED.LogiLedFlashLighting(red, green, blue, durationMs, intervalMs);
+    }
+
+    @Override
+    public boolean pulseLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        return LogiLED.LogiLedPulseLighting(red, green, blue, durationMs, intervalMs);
+    }
+
+    @Override
+    public boolean stopEffects() {
+        return LogiLED.LogiLedStopEffects();
+    }
+
+    @Override
+    public void shutdown() {
+        LogiLED.LogiLedShutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package com.g2806.glights.client.led;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class PhysicalKeyPlan {
+    public static final int PRIORITY_OVERRIDE = -1;
+
+    // Vanilla categories in the order they should claim a shared key; modded categories follow alphabetically.
+    private static final List<String> CATEGORY_ORDER = List.of(
+            "key.categories.movement",
+            "key.categories.gameplay",
+            "key.categories.inventory",
+            "key.categories.multiplayer",
+            "key.categories.ui",
+            "key.categories.creative",
+            "key.categories.misc"
+    );
+    private static final int UNKNOWN_PRIORITY = Integer.MAX_VALUE;
+    private static final int MODDED_PRIORITY = CATEGORY_ORDER.size();
+
+    @FunctionalInterface
+    public interface KeyWriter {
+        void write(int logiKey, int scanCode, int color);
+    }
+
+    private final Slot scanSlots = new Slot();
+    private final Slot keyNameSlots = new Slot();
+    private final boolean[] keyNamesWritten = new boolean[LedFrame.KEY_SLOTS];
+
+    public PhysicalKeyPlan() {
+        reset();
+    }
+
+    public static int categoryPriority(String category) {
+        if (category == null) {
+            return UNKNOWN_PRIORITY;
+        }
+        int index = CATEGORY_ORDER.indexOf(category);
+        if (index >= 0) {
+            return index;
+        }
+        return category.startsWith("key.categories.unknown") ? UNKNOWN_PRIORITY : MODDED_PRIORITY;
+    }
+
+    public void reset() {
+        scanSlots.reset();
+        keyNameSlots.reset();
+    }
+
+    /**
+     * Offers a binding for its physical key. The lowest priority wins; equal priorities fall back to
+     * category then binding name so the result does not depend on registration order.
+     */
+    public void offer(int logiKey, int scanCode, int priority, String category, String name, int color) {
+        if (LedFrame.inRange(scanCode)) {
+            scanSlots.offer(scanCode, logiKey, priority, category, name, color);
+        } else if (LedFrame.inRange(logiKey)) {
+            keyNameSlots.offer(logiKey, logiKey, priority, category, name, color);
+        }
+    }
+
+    public int size() {
+        return scanSlots.count + keyNameSlots.count;
+    }
+
+    public void writeTo(KeyWriter writer) {
+        Arrays.fill(keyNamesWritten, false);
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            if (scanSlots.claimed[code]) {
+                int logiKey = scanSlots.logiKeys[code];
+                if (LedFrame.inRange(logiKey)) {
+                    keyNamesWritten[logiKey] = true;
+                }
+                writer.write(logiKey, code, scanSlots.colors[code]);
+            }
+        }
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            // Keys only addressable by name are skipped when a scan-code binding already lit the same key.
+            if (keyNameSlots.claimed[code] && !keyNamesWritten[code]) {
+                writer.write(code, -1, keyNameSlots.colors[code]);
+            }
+        }
+    }
+
+    private static final class Slot {
+        final boolean[] claimed = new boolean[LedFrame.KEY_SLOTS];
+        final int[] priorities = new int[LedFrame.KEY_SLOTS];
+        final int[] logiKeys = new int[LedFrame.KEY_SLOTS];
+        final int[] colors = new int[LedFrame.KEY_SLOTS];
+        final String[] categories = new String[LedFrame.KEY_SLOTS];
+        final String[] names = new String[LedFrame.KEY_SLOTS];
+        int count;
+
+        void reset() {
+            Arrays.fill(claimed, false);
+            Arrays.fill(logiKeys, -1);
+            Arrays.fill(categories, null);
+            Arrays.fill(names, null);
+            count = 0;
+        }
+
+        void offer(int index, int logiKey, int priority, String category, String name, int color) {
+            if (claimed[index] && !beats(index, priority, category, name)) {
+                return;
+            }
+            if (!claimed[index]) {
+                claimed[index] = true;
+                count++;
+            }
+            priorities[index] = priority;
+            logiKeys[index] = logiKey;
+            colors[index] = color & 0xFFFFFF;
+            categories[index] = category;
+            names[index] = name;
+        }
+
+        private boolean beats(int index, int priority, String category, String name) {
+            if (priority != priorities[index]) {
+                return priority < priorities[index];
+            }
+            int byCategory = compare(category, categories[index]);
+            if (byCategory != 0) {
+                return byCategory < 0;
+            }
+            return compare(name, names[index]) < 0;
+        }
+
+        private static int compare(String left, String right) {
+            if (left == null) {
+                return right == null ? 0 : 1;
+            }
+            return right == null ? -1 : left.compareTo(right);
+        }
+    }
+}
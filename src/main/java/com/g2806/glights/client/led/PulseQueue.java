@@ -0,0 +1,65 @@
+package com.g2806.glights.client.led;
+
+/**
+ * Preallocated ring of key pulses (scan code and color). When full, a new pulse overwrites the oldest one, so a burst
+ * never allocates, never blocks and never loses the most recent pulses. It is not thread-safe: it is filled and
+ * drained on the client thread.
+ */
+public final class PulseQueue {
+    public static final long EMPTY = -1L;
+
+    private final long[] entries;
+    private final int mask;
+    private long head;
+    private long tail;
+    private long dropped;
+
+    public PulseQueue(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        }
+        this.entries = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void offer(int scanCode, int color) {
+        if (tail - head > mask) {
+            head++;
+            dropped++;
+        }
+        entries[(int) tail & mask] = ((long) scanCode << 32) | (color & 0xFFFFFFFFL);
+        tail++;
+    }
+
+    // The oldest pulse, or EMPTY; take it apart with scanCodeOf() and colorOf().
+    public long poll() {
+        if (head == tail) {
+            return EMPTY;
+        }
+        return entries[(int) head++ & mask];
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    public void clear() {
+        head = tail;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public static int scanCodeOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int colorOf(long entry) {
+        return (int) entry;
+    }
+}
@@ -0,0 +1,114 @@
+package com.g2806.glights.client.led;
+
+import com.logitech.gaming.LogiLED;
+
+import java.util.Arrays;
+
+// Emulates a per-key keyboard in memory so frames can be inspected and native calls counted without the SDK.
+public final class RecordingLedBackend implements LedBackend {
+    private final int[] keyColors = new int[LedFrame.KEY_SLOTS];
+    private int targetDevice = LogiLED.LOGI_DEVICETYPE_ALL;
+    private int keyboardColor;
+    private int mouseColor;
+    private int effect = LedFrame.EFFECT_NONE;
+    private long calls;
+    private boolean initialized;
+
+    @Override
+    public boolean init() {
+        initialized = true;
+        calls++;
+        return true;
+    }
+
+    @Override
+    public boolean setTargetDevice(int targetDevice) {
+        calls++;
+        this.targetDevice = targetDevice;
+        return initialized;
+    }
+
+    @Override
+    public boolean setLighting(int red, int green, int blue) {
+        calls++;
+        int color = fromPercent(red, green, blue);
+        if ((targetDevice & LogiLED.LOGI_DEVICETYPE_PERKEY_RGB) != 0) {
+            keyboardColor = color;
+            Arrays.fill(keyColors, color);
+        }
+        if ((targetDevice & LogiLED.LOGI_DEVICETYPE_RGB) != 0) {
+            mouseColor = color;
+        }
+        return initialized;
+    }
+
+    @Override
+    public boolean setLightingForKeyWithScanCode(int scanCode, int red, int green, int blue) {
+        calls++;
+        if (LedFrame.inRange(scanCode)) {
+            keyColors[scanCode] = fromPercent(red, green, blue);
+        }
+        return initialized;
+    }
+
+    @Override
+    public boolean setLightingForKeyWithKeyName(int keyName, int red, int green, int blue) {
+        // Logitech key names share their values with set-1 scan codes.
+        return setLightingForKeyWithScanCode(keyName, red, green, blue);
+    }
+
+    @Override
+    public boolean flashLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        calls++;
+        effect = LedFrame.EFFECT_FLASH;
+        return initialized;
+    }
+
+    @Override
+    public boolean pulseLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        calls++;
+        effect = LedFrame.EFFECT_PULSE;
+        return initialized;
+    }
+
+    @Override
+    public boolean stopEffects() {
+        calls++;
+        effect = LedFrame.EFFECT_NONE;
+        return initialized;
+    }
+
+    @Override
+    public void shutdown() {
+        calls++;
+        initialized = false;
+    }
+
+    public int getKeyColor(int scanCode) {
+        return LedFrame.inRange(scanCode) ? keyColors[scanCode] : keyboardColor;
+    }
+
+    public int getKeyboardColor() {
+        return keyboardColor;
+    }
+
+    public int getMouseColor() {
+        return mouseColor;
+    }
+
+    public int getEffect() {
+        return effect;
+    }
+
+    public long getCallCount() {
+        return calls;
+    }
+
+    private static int fromPercent(int red, int green, int blue) {
+        return (channel(red) << 16) | (channel(green) << 8) | channel(blue);
+    }
+
+    private static int channel(int percent) {
+        return Math.round(Math.max(0, Math.min(100, percent)) * 2.55F);
+    }
+}
@@ -0,0 +1,30 @@
+package com.g2806.glights.mixin;
+
+import com.g2806.glights.client.GLightsClient;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundExplodePacket;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.phys.Vec3;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Explosions and lightning bolts for the flash ripple. Both handlers first bounce from the network thread to the
+// client thread, so injecting at TAIL sees each packet once, on the client thread.
+@Mixin(ClientPacketListener.class)
+public abstract class ClientPacketListenerMixin {
+    @Inject(method = "handleExplosion", at = @At("TAIL"))
+    private void glights$onExplosion(ClientboundExplodePacket packet, CallbackInfo info) {
+        Vec3 center = packet.center();
+        GLightsClient.onExplosion(center.x, center.y, center.z);
+    }
+
+    @Inject(method = "handleAddEntity", at = @At("TAIL"))
+    private void glights$onAddEntity(ClientboundAddEntityPacket packet, CallbackInfo info) {
+        if (packet.getType() == EntityType.LIGHTNING_BOLT) {
+            GLightsClient.onLightning(packet.getX(), packet.getY(), packet.getZ());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.g2806.glights.mixin;
+
+import com.g2806.glights.client.GLightsClient;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Scroll wheel, number keys and server slot packets all end up here, so the hotbar highlight can follow at once.
+@Mixin(Inventory.class)
+public abstract class InventoryMixin {
+    @Shadow
+    @Final
+    public Player player;
+
+    @Inject(method = "setSelectedSlot", at = @At("TAIL"))
+    private void glights$onSelectedSlot(int slot, CallbackInfo info) {
+        // The integrated server's copy of the player shares this class; only the local player drives the LEDs.
+        if (player instanceof LocalPlayer) {
+            GLightsClient.onSelectedSlotChanged(slot);
+        }
+    }
+}
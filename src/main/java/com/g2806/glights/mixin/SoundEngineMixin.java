@@ -0,0 +1,21 @@
+package com.g2806.glights.mixin;
+
+import com.g2806.glights.client.GLightsClient;
+import net.minecraft.client.resources.sounds.SoundInstance;
+import net.minecraft.client.sounds.SoundEngine;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+// Every sound the client plays, for the sound-reactive pulses. Only sounds that actually started count; by then the
+// instance has resolved its pitch.
+@Mixin(SoundEngine.class)
+public abstract class SoundEngineMixin {
+    @Inject(method = "play", at = @At("RETURN"))
+    private void glights$onPlay(SoundInstance sound, CallbackInfoReturnable<SoundEngine.PlayResult> info) {
+        if (info.getReturnValue() == SoundEngine.PlayResult.STARTED) {
+            GLightsClient.onSound(sound);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.g2806.glights.tools;
+
+import com.g2806.glights.client.led.Backoff;
+import com.g2806.glights.client.led.CircuitBreaker;
+import com.g2806.glights.client.led.DirectLedOutput;
+import com.g2806.glights.client.led.LedFrame;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+// Drives the in-process output against a fault-injecting backend: failing calls, a stalled call, and recovery from both.
+public final class CircuitBreakerProbe {
+    private static final int PROBE_KEY = 0x1E;
+    private static final long STALL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long MAX_SUBMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private CircuitBreakerProbe() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        FaultInjectingLedBackend backend = new FaultInjectingLedBackend();
+        CircuitBreaker breaker = new CircuitBreaker(3, new Backoff(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(400)));
+        DirectLedOutput output = new DirectLedOutput(backend, breaker, STALL_TIMEOUT_NANOS);
+        if (!output.open()) {
+            fail("output did not open");
+        }
+
+        LedFrame frame = new LedFrame();
+        show(output, frame, 0xFF0000);
+        await(() -> backend.getKeyColor(PROBE_KEY) == 0xFF0000, "first frame never reached the device");
+
+        backend.setFailing(true);
+        show(output, frame, 0x00FF00);
+        await(output::isPaused, "circuit did not open after failing calls");
+        long callsWhileOpen = backend.getCalls();
+        long worstSubmit = submitFor(output, frame, 0x00FF00, 300);
+        long probeCalls = backend.getCalls() - callsWhileOpen;
+        System.out.printf(Locale.ROOT, "circuit open after %d failed calls; %d native calls across 60 ticks while open%n",
+                backend.getFailedCalls(), probeCalls);
+        if (probeCalls > 20) {
+            fail("output kept hammering a failing SDK");
+        }
+
+        backend.setFailing(false);
+        await(() -> !output.isPaused() && backend.getKeyColor(PROBE_KEY) == 0x00FF00, "output did not re-init after failures cleared");
+        System.out.printf(Locale.ROOT, "recovered after %d trip(s)%n", output.getTrips());
+
+        int tripsBefore = output.getTrips();
+        backend.stallNextCall(TimeUnit.MILLISECONDS.toNanos(600));
+        show(output, frame, 0x0000FF);
+        worstSubmit = Math.max(worstSubmit, submitFor(output, frame, 0x0000FF, 400));
+        await(() -> output.getTrips() > tripsBefore, "stalled call did not open the circuit");
+        await(() -> !output.isPaused() && backend.getKeyColor(PROBE_KEY) == 0x0000FF, "output did not recover from a stalled call");
+        System.out.printf(Locale.ROOT, "stalled call tripped the watchdog; worst submit took %.2f ms%n", worstSubmit / 1_000_000.0);
+        if (worstSubmit > MAX_SUBMIT_NANOS) {
+            fail("submit blocked behind the SDK");
+        }
+
+        output.close();
+        System.out.println("Circuit breaker probe passed");
+    }
+
+    private static void show(DirectLedOutput output, LedFrame frame, int color) {
+        frame.fill(0x000000);
+        frame.setScanCode(PROBE_KEY, color);
+        output.submit(frame);
+    }
+
+    // Submits a frame every 5 ms like a busy client thread and returns the slowest submit.
+    private static long submitFor(DirectLedOutput output, LedFrame frame, int color, long millis) throws InterruptedException {
+        long worst = 0;
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            show(output, frame, color);
+            worst = Math.max(worst, System.nanoTime() - start);
+            Thread.sleep(5);
+        }
+        return worst;
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail(failure);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("Circuit breaker probe failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,132 @@
+package com.g2806.glights.tools;
+
+import com.g2806.glights.client.led.LedBackend;
+import com.g2806.glights.client.led.RecordingLedBackend;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Stand-in for a misbehaving SDK: wraps the recording backend and can fail calls, refuse init or stall the next call.
+public final class FaultInjectingLedBackend implements LedBackend {
+    private final RecordingLedBackend device = new RecordingLedBackend();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private volatile boolean failing;
+    private volatile boolean failInit;
+    private volatile long stallNextCallNanos;
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public void setFailInit(boolean failInit) {
+        this.failInit = failInit;
+    }
+
+    public void stallNextCall(long nanos) {
+        stallNextCallNanos = nanos;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    public int getKeyColor(int scanCode) {
+        synchronized (device) {
+            return device.getKeyColor(scanCode);
+        }
+    }
+
+    @Override
+    public boolean init() {
+        before();
+        synchronized (device) {
+            return after(device.init() && !failInit);
+        }
+    }
+
+    @Override
+    public boolean setTargetDevice(int targetDevice) {
+        before();
+        synchronized (device) {
+            return after(device.setTargetDevice(targetDevice));
+        }
+    }
+
+    @Override
+    public boolean setLighting(int red, int green, int blue) {
+        before();
+        synchronized (device) {
+            return after(device.setLighting(red, green, blue));
+        }
+    }
+
+    @Override
+    public boolean setLightingForKeyWithScanCode(int scanCode, int red, int green, int blue) {
+        before();
+        synchronized (device) {
+            return after(device.setLightingForKeyWithScanCode(scanCode, red, green, blue));
+        }
+    }
+
+    @Override
+    public boolean setLightingForKeyWithKeyName(int keyName, int red, int green, int blue) {
+        before();
+        synchronized (device) {
+            return after(device.setLightingForKeyWithKeyName(keyName, red, green, blue));
+        }
+    }
+
+    @Override
+    public boolean flashLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        before();
+        synchronized (device) {
+            return after(device.flashLighting(red, green, blue, durationMs, intervalMs));
+        }
+    }
+
+    @Override
+    public boolean pulseLighting(int red, int green, int blue, int durationMs, int intervalMs) {
+        before();
+        synchronized (device) {
+            return after(device.pulseLighting(red, green, blue, durationMs, intervalMs));
+        }
+    }
+
+    @Override
+    public boolean stopEffects() {
+        before();
+        synchronized (device) {
+            return after(device.stopEffects());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        calls.incrementAndGet();
+        synchronized (device) {
+            device.shutdown();
+        }
+    }
+
+    private void before() {
+        calls.incrementAndGet();
+        long stall = stallNextCallNanos;
+        if (stall > 0) {
+            stallNextCallNanos = 0;
+            LockSupport.parkNanos(stall);
+        }
+    }
+
+    private boolean after(boolean success) {
+        if (failing) {
+            failedCalls.incrementAndGet();
+            return false;
+        }
+        return success;
+    }
+}
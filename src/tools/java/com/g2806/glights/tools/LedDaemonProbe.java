@@ -0,0 +1,91 @@
+package com.g2806.glights.tools;
+
+import com.g2806.glights.client.led.DaemonLedOutput;
+import com.g2806.glights.client.led.LedDaemon;
+import com.g2806.glights.client.led.LedFrame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+// Drives the out-of-process LED helper with the recording backend: frame delivery, a killed helper being restarted,
+// then releasing the device and taking it back on the same helper.
+public final class LedDaemonProbe {
+    private static final int FRAMES = 200;
+
+    private LedDaemonProbe() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path socket = Files.createTempDirectory("glights-probe").resolve("led.sock");
+        DaemonLedOutput output = new DaemonLedOutput(socket, DaemonLedOutput.helperCommand(LedDaemon.BACKEND_RECORDING));
+        long openStart = System.nanoTime();
+        if (!output.open()) {
+            fail("socket could not be bound");
+        }
+        long openNanos = System.nanoTime() - openStart;
+        await(output::isConnected, "helper did not connect");
+        requireNoRestarts(output, "before any frame was sent");
+        System.out.printf(Locale.ROOT, "open returned in %.1f ms; helper connected afterwards%n", openNanos / 1_000_000.0);
+
+        LedFrame frame = new LedFrame();
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            frame.fill(0x101010);
+            frame.setScanCode(0x11, i * 0x010203);
+            frame.setScanCode(0x1E + (i % 4), 0xFF0000);
+            output.submit(frame);
+            Thread.sleep(1);
+        }
+        int lastSequence = FRAMES - 1;
+        await(() -> output.getLastAckedSequence() == lastSequence, "last frame was not acknowledged");
+        System.out.printf(Locale.ROOT, "delivered %d frames in %.1f ms, last frame cost %d native calls%n",
+                FRAMES, (System.nanoTime() - start) / 1_000_000.0, output.getLastNativeCalls());
+
+        requireNoRestarts(output, "while frames were delivered");
+        int restartsBefore = output.getRestarts();
+        ProcessHandle.current().children().forEach(ProcessHandle::destroyForcibly);
+        await(() -> output.getRestarts() > restartsBefore && output.isConnected(), "helper was not restarted");
+        frame.setScanCode(0x11, 0x00FF00);
+        output.submit(frame);
+        await(() -> output.getLastAckedSequence() == FRAMES, "frame after restart was not acknowledged");
+        System.out.printf(Locale.ROOT, "helper restarted %d time(s) and resumed%n", output.getRestarts() - restartsBefore);
+
+        int restartsBeforeRelease = output.getRestarts();
+        output.release();
+        Thread.sleep(200);
+        frame.setScanCode(0x11, 0x0000FF);
+        output.submit(frame);
+        await(() -> output.getLastAckedSequence() == FRAMES + 1, "frame after release was not acknowledged");
+        if (output.getRestarts() != restartsBeforeRelease) {
+            fail("releasing the device restarted the helper");
+        }
+        System.out.println("released the device and took it back without a new helper");
+
+        output.close();
+        System.out.println("LED helper probe passed");
+    }
+
+    // A helper that dies on its own is restarted quietly, so delivery alone would not show it.
+    private static void requireNoRestarts(DaemonLedOutput output, String when) {
+        if (output.getRestarts() != 0) {
+            fail("helper restarted " + output.getRestarts() + " time(s) " + when);
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail(failure);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("LED helper probe failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.g2806.glights.tools;
+
+import com.g2806.glights.client.led.PhysicalKeyPlan;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+public final class RelightBenchmark {
+    private static final int BINDINGS = 1_000;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 10_000;
+    private static final int[] PHYSICAL_KEYS = {
+            0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D, 0x0F,
+            0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18, 0x19, 0x1C, 0x1D, 0x1E, 0x1F,
+            0x20, 0x21, 0x22, 0x23, 0x24, 0x25, 0x26, 0x29, 0x2A, 0x2C, 0x2D, 0x2E, 0x2F, 0x30,
+            0x31, 0x32, 0x33, 0x34, 0x35, 0x38, 0x39, 0x3A, 0x3B, 0x3C, 0x3D, 0x3E, 0x3F, 0x40,
+            0x41, 0x42, 0x43, 0x44, 0x47, 0x48, 0x49, 0x4B, 0x4C, 0x4D, 0x4F, 0x50, 0x51, 0x52,
+            0x57, 0x58, 0x148, 0x14B, 0x14D, 0x150
+    };
+
+    private RelightBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(2806L);
+        int[] scanCodes = new int[BINDINGS];
+        int[] priorities = new int[BINDINGS];
+        String[] categories = new String[BINDINGS];
+        String[] names = new String[BINDINGS];
+        int[] colors = new int[BINDINGS];
+        for (int i = 0; i < BINDINGS; i++) {
+            scanCodes[i] = PHYSICAL_KEYS[random.nextInt(PHYSICAL_KEYS.length)];
+            categories[i] = i < 40 ? vanillaCategory(i) : "key.categories.mod" + random.nextInt(80);
+            priorities[i] = PhysicalKeyPlan.categoryPriority(categories[i]);
+            names[i] = "key.synthetic." + i;
+            colors[i] = random.nextInt(0x1000000);
+        }
+
+        PhysicalKeyPlan plan = new PhysicalKeyPlan();
+        int[] writes = new int[1];
+        PhysicalKeyPlan.KeyWriter writer = (logiKey, scanCode, color) -> writes[0]++;
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            relight(plan, writer, scanCodes, priorities, categories, names, colors);
+        }
+
+        long[] samples = new long[MEASURED_ROUNDS];
+        writes[0] = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            relight(plan, writer, scanCodes, priorities, categories, names, colors);
+            samples[round] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+
+        System.out.printf(Locale.ROOT, "bindings=%d physical keys=%d writes/relight=%d (naive %d)%n",
+                BINDINGS, plan.size(), writes[0] / MEASURED_ROUNDS, BINDINGS);
+        System.out.printf(Locale.ROOT, "relight p50=%.1fus p99=%.1fus max=%.1fus%n",
+                samples[MEASURED_ROUNDS / 2] / 1_000.0,
+                samples[MEASURED_ROUNDS * 99 / 100] / 1_000.0,
+                samples[MEASURED_ROUNDS - 1] / 1_000.0);
+    }
+
+    private static void relight(PhysicalKeyPlan plan, PhysicalKeyPlan.KeyWriter writer, int[] scanCodes, int[] priorities,
+                                String[] categories, String[] names, int[] colors) {
+        plan.reset();
+        for (int i = 0; i < scanCodes.length; i++) {
+            plan.offer(scanCodes[i], scanCodes[i], priorities[i], categories[i], names[i], colors[i]);
+        }
+        plan.writeTo(writer);
+    }
+
+    private static String vanillaCategory(int index) {
+        return switch (index % 7) {
+            case 0 -> "key.categories.movement";
+            case 1 -> "key.categories.gameplay";
+            case 2 -> "key.categories.inventory";
+            case 3 -> "key.categories.multiplayer";
+            case 4 -> "key.categories.ui";
+            case 5 -> "key.categories.creative";
+            default -> "key.categories.misc";
+        };
+    }
+}
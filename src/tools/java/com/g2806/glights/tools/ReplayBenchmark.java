@@ -0,0 +1,180 @@
+package com.g2806.glights.tools;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.effect.EffectEngine;
+import com.g2806.glights.client.effect.PlayerState;
+import com.g2806.glights.client.led.FrameCommitter;
+import com.g2806.glights.client.led.FrameRecorder;
+import com.g2806.glights.client.led.FrameReplay;
+import com.g2806.glights.client.led.LedBackend;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.LogiLedBackend;
+import com.g2806.glights.client.led.RecordingLedBackend;
+import com.g2806.glights.tools.sim.PlayerTimeline;
+import com.g2806.glights.tools.sim.SimulatedCanvas;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a recorded frame trace into a backend and reports commit throughput. Without {@code --trace} a sample
+ * trace is first recorded from the simulator's default player timeline.
+ *
+ * <pre>
+ * replayBenchmark [--trace file.glfr] [--backend recording|fault|logitech] [--max-speed] [--loops n] [--budget calls] [--keep]
+ * </pre>
+ */
+public final class ReplayBenchmark {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private ReplayBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path trace = null;
+        String backendName = "recording";
+        boolean maxSpeed = false;
+        int loops = 1;
+        int budget = FrameCommitter.UNLIMITED;
+        boolean keep = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--trace" -> trace = Path.of(args[++i]);
+                case "--backend" -> backendName = args[++i];
+                case "--max-speed" -> maxSpeed = true;
+                case "--loops" -> loops = Integer.parseInt(args[++i]);
+                case "--budget" -> budget = Integer.parseInt(args[++i]);
+                case "--keep" -> keep = true;
+                default -> {
+                    System.err.println("Unknown argument " + args[i]);
+                    System.exit(64);
+                }
+            }
+        }
+
+        boolean sample = trace == null;
+        if (sample) {
+            trace = Files.createTempFile("glights-sample-", ".glfr");
+            Files.delete(trace);
+            recordSample(trace);
+            System.out.printf(Locale.ROOT, "recorded sample trace %s (%d bytes)%n", trace, Files.size(trace));
+        }
+
+        LedBackend backend = switch (backendName) {
+            case "recording" -> new RecordingLedBackend();
+            case "fault" -> new FaultInjectingLedBackend();
+            case "logitech" -> new LogiLedBackend();
+            default -> {
+                System.err.println("Unknown backend " + backendName);
+                System.exit(64);
+                yield null;
+            }
+        };
+        if (!backend.init()) {
+            System.err.println("Backend " + backendName + " failed to initialise");
+            System.exit(1);
+        }
+
+        try {
+            replay(FrameReplay.open(trace), backend, maxSpeed, loops, budget, Files.size(trace));
+        } finally {
+            backend.shutdown();
+            if (sample && !keep) {
+                Files.deleteIfExists(trace);
+            }
+        }
+    }
+
+    private static void replay(FrameReplay replay, LedBackend backend, boolean maxSpeed, int loops, int budget,
+            long traceBytes)
+            throws InterruptedException {
+        FrameCommitter committer = new FrameCommitter(backend);
+        LedFrame frame = new LedFrame();
+        long[] commitNanos = new long[1024];
+        int count = 0;
+        long totalCalls = 0;
+        int maxCalls = 0;
+        long deferredKeys = 0;
+        long recordedMicros = 0;
+
+        long started = System.nanoTime();
+        long due = started;
+        for (int loop = 0; loop < loops; loop++) {
+            replay.rewind();
+            while (replay.next(frame)) {
+                if (!maxSpeed) {
+                    due += TimeUnit.MICROSECONDS.toNanos(replay.getFrameMicros());
+                    long sleep = due - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    }
+                }
+                long start = System.nanoTime();
+                int calls = committer.commit(frame, budget);
+                long elapsed = System.nanoTime() - start;
+                if (count == commitNanos.length) {
+                    commitNanos = Arrays.copyOf(commitNanos, count * 2);
+                }
+                commitNanos[count++] = elapsed;
+                totalCalls += calls;
+                maxCalls = Math.max(maxCalls, calls);
+                deferredKeys += committer.getLastDeferredKeys();
+                recordedMicros += replay.getFrameMicros();
+            }
+        }
+        long wall = System.nanoTime() - started;
+        if (count == 0) {
+            System.err.println("Trace holds no frames");
+            System.exit(1);
+        }
+
+        long[] sorted = Arrays.copyOf(commitNanos, count);
+        Arrays.sort(sorted);
+        long commitTotal = 0;
+        for (long value : sorted) {
+            commitTotal += value;
+        }
+        System.out.printf(Locale.ROOT, "%d frames (%.1f bytes/frame on disk), recorded span %.1f s, replayed in %.1f ms%s%n",
+                count, traceBytes / (double) replay.getFramesRead(), recordedMicros / 1e6 / loops, wall / 1e6,
+                maxSpeed ? " at max speed" : "");
+        System.out.printf(Locale.ROOT, "backend throughput %.0f frames/s, %.0f native calls/s%n",
+                count * 1e9 / Math.max(1L, commitTotal), totalCalls * 1e9 / Math.max(1L, commitTotal));
+        System.out.printf(Locale.ROOT, "commit p50=%.1fus p99=%.1fus max=%.1fus%n",
+                sorted[count / 2] / 1_000.0, sorted[Math.min(count - 1, count * 99 / 100)] / 1_000.0, sorted[count - 1] / 1_000.0);
+        System.out.printf(Locale.ROOT, "native calls per frame avg=%.1f max=%d total=%d%n",
+                totalCalls / (double) count, maxCalls, totalCalls);
+        if (budget != FrameCommitter.UNLIMITED) {
+            System.out.printf(Locale.ROOT, "budget %d calls/frame, %d key writes deferred%n", budget, deferredKeys);
+        }
+    }
+
+    // Records the default simulator timeline the way LightHandler records a session, stamped at 20 ticks per second.
+    private static void recordSample(Path trace) throws IOException {
+        ConfigManager config = new ConfigManager(Path.of(System.getProperty("java.io.tmpdir"), "glights-replay-defaults.json"));
+        config.load();
+        SimulatedCanvas canvas = new SimulatedCanvas(config);
+        EffectEngine engine = new EffectEngine(canvas, config, canvas::restoreBase, new Random(2806L));
+        PlayerTimeline timeline = PlayerTimeline.parse(PlayerTimeline.DEFAULT_SCRIPT);
+        PlayerState state = new PlayerState();
+        LedFrame frame = canvas.getFrame();
+        canvas.restoreBase();
+
+        try (FrameRecorder recorder = FrameRecorder.open(trace)) {
+            int recordedVersion = frame.getVersion();
+            recorder.record(frame, 0L);
+            for (int tick = 0; tick < timeline.length(); tick++) {
+                timeline.apply(tick, state);
+                engine.update(state);
+                if (frame.getVersion() != recordedVersion) {
+                    recorder.record(frame, (tick + 1) * TICK_NANOS);
+                    recordedVersion = frame.getVersion();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.g2806.glights.tools.sim;
+
+import com.g2806.glights.client.led.KeyboardLayout;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+// Draws a keyboard layout as truecolor ANSI cells, one character per quarter key width.
+public final class AnsiKeyboardRenderer {
+    private static final String RESET = "\033[0m";
+
+    private final KeyboardLayout layout;
+
+    public AnsiKeyboardRenderer(KeyboardLayout layout) {
+        this.layout = layout;
+    }
+
+    public void render(IntUnaryOperator colorOfScanCode, StringBuilder out) {
+        for (List<KeyboardLayout.Key> row : layout.getRows()) {
+            for (KeyboardLayout.Key key : row) {
+                int width = key.getQuarterWidth();
+                if (key.isSpacer()) {
+                    out.append(RESET).append(" ".repeat(width));
+                    continue;
+                }
+                int color = colorOfScanCode.applyAsInt(key.getScanCode()) & 0xFFFFFF;
+                int red = (color >> 16) & 0xFF;
+                int green = (color >> 8) & 0xFF;
+                int blue = color & 0xFF;
+                boolean light = red * 299 + green * 587 + blue * 114 > 128_000;
+                out.append("\033[48;2;").append(red).append(';').append(green).append(';').append(blue).append('m');
+                out.append(light ? "\033[30m" : "\033[97m");
+                out.append(fit(key.getLabel(), width - 1)).append(RESET).append(' ');
+            }
+            out.append(RESET).append('\n');
+        }
+    }
+
+    private static String fit(String label, int width) {
+        if (width <= 0) {
+            return "";
+        }
+        if (label.length() >= width) {
+            return label.substring(0, width);
+        }
+        int left = (width - label.length()) / 2;
+        return " ".repeat(left) + label + " ".repeat(width - label.length() - left);
+    }
+}
@@ -0,0 +1,136 @@
+package com.g2806.glights.tools.sim;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.effect.EffectEngine;
+import com.g2806.glights.client.effect.PlayerState;
+import com.g2806.glights.client.led.FrameCommitter;
+import com.g2806.glights.client.led.KeyboardLayout;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.RecordingLedBackend;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the client's effect engine headless against a scripted player timeline, commits every frame to a
+ * recording backend and draws what the emulated keyboard shows as a truecolor ANSI keyboard.
+ *
+ * <pre>
+ * effectSimulator [--script file] [--config glights.json] [--seed n] [--realtime] [--quiet]
+ * </pre>
+ */
+public final class EffectSimulator {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private EffectSimulator() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String script = PlayerTimeline.DEFAULT_SCRIPT;
+        Path configPath = null;
+        long seed = 2806L;
+        boolean realtime = false;
+        boolean quiet = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--script" -> script = Files.readString(Path.of(args[++i]), StandardCharsets.UTF_8);
+                case "--config" -> configPath = Path.of(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--realtime" -> realtime = true;
+                case "--quiet" -> quiet = true;
+                default -> {
+                    System.err.println("Unknown argument " + args[i]);
+                    System.exit(64);
+                }
+            }
+        }
+
+        // Without --config the defaults are used; the simulator never saves, so the path only has to be absent.
+        ConfigManager config = new ConfigManager(configPath != null ? configPath
+                : Path.of(System.getProperty("java.io.tmpdir"), "glights-simulator-defaults.json"));
+        config.load();
+        PlayerTimeline timeline = PlayerTimeline.parse(script);
+        SimulatedCanvas canvas = new SimulatedCanvas(config);
+        EffectEngine engine = new EffectEngine(canvas, config, canvas::restoreBase, new Random(seed));
+        RecordingLedBackend device = new RecordingLedBackend();
+        device.init();
+        FrameCommitter committer = new FrameCommitter(device);
+        AnsiKeyboardRenderer renderer = new AnsiKeyboardRenderer(KeyboardLayout.tenkeyless());
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        PlayerState state = new PlayerState();
+
+        int ticks = timeline.length();
+        long[] buildNanos = new long[ticks];
+        long[] commitNanos = new long[ticks];
+        int[] nativeCalls = new int[ticks];
+        LedFrame frame = canvas.getFrame();
+        canvas.restoreBase();
+        committer.commit(frame);
+        int committedVersion = frame.getVersion();
+
+        StringBuilder screen = new StringBuilder(16_384);
+        if (!quiet) {
+            out.print("\033[2J");
+        }
+        long started = System.nanoTime();
+        long nextTick = started;
+        for (int tick = 0; tick < ticks; tick++) {
+            timeline.apply(tick, state);
+
+            long start = System.nanoTime();
+            engine.update(state);
+            long built = System.nanoTime();
+            if (frame.getVersion() != committedVersion) {
+                nativeCalls[tick] = committer.commit(frame);
+                committedVersion = frame.getVersion();
+            }
+            long committed = System.nanoTime();
+            buildNanos[tick] = built - start;
+            commitNanos[tick] = committed - built;
+
+            if (!quiet) {
+                screen.setLength(0);
+                screen.append("\033[H");
+                renderer.render(device::getKeyColor, screen);
+                screen.append(String.format(Locale.ROOT, "%ntick %4d/%d  %-13s build %7.1f us  native calls %3d\033[K%n",
+                        tick + 1, ticks, engine.getActiveEffect(), buildNanos[tick] / 1_000.0, nativeCalls[tick]));
+                out.print(screen);
+                out.flush();
+            }
+            if (realtime) {
+                nextTick += TICK_NANOS;
+                long sleep = nextTick - System.nanoTime();
+                if (sleep > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long totalWork = 0;
+        long totalCalls = 0;
+        int maxCalls = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            totalWork += buildNanos[tick] + commitNanos[tick];
+            totalCalls += nativeCalls[tick];
+            maxCalls = Math.max(maxCalls, nativeCalls[tick]);
+        }
+        long[] sortedBuild = buildNanos.clone();
+        Arrays.sort(sortedBuild);
+        out.printf(Locale.ROOT, "%n%d frames in %.1f ms wall (%.0f fps rendered, %.0f fps effect+commit only)%n",
+                ticks, elapsed / 1_000_000.0, ticks * 1e9 / elapsed, ticks * 1e9 / Math.max(1L, totalWork));
+        out.printf(Locale.ROOT, "frame build p50=%.1fus p99=%.1fus max=%.1fus%n",
+                sortedBuild[ticks / 2] / 1_000.0, sortedBuild[Math.min(ticks - 1, ticks * 99 / 100)] / 1_000.0,
+                sortedBuild[ticks - 1] / 1_000.0);
+        out.printf(Locale.ROOT, "native calls per frame avg=%.1f max=%d total=%d%n",
+                totalCalls / (double) ticks, maxCalls, totalCalls);
+        out.flush();
+    }
+}
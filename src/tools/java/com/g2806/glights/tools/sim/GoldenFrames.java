@@ -0,0 +1,244 @@
+package com.g2806.glights.tools.sim;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.effect.EffectEngine;
+import com.g2806.glights.client.effect.PlayerState;
+import com.g2806.glights.client.led.FrameCommitter;
+import com.g2806.glights.client.led.FrameStreamCodec;
+import com.g2806.glights.client.led.LedFrame;
+import com.g2806.glights.client.led.RecordingLedBackend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Golden-frame regression check. Every special effect is played for {@link #TICKS} ticks with a fixed seed, and
+ * the frames it draws are compared against files in the golden directory; the native calls each frame costs are
+ * held to a per-effect ceiling. Each effect is also played through a commit budget of {@link #COMMIT_BUDGET} calls,
+ * which only critical effects may exceed. Run with {@code --update} to rewrite the golden files after an intended change.
+ *
+ * <p>Golden file: {@code "GLGF" | u8 version | u16 ticks}, then per tick {@code u16 native calls} and one
+ * {@link FrameStreamCodec} frame.
+ */
+public final class GoldenFrames {
+    private static final int MAGIC = 0x474C4746;
+    private static final byte VERSION = 1;
+    private static final int TICKS = 120;
+    private static final long SEED = 2806L;
+    // Math.sin may differ by an ulp between platforms, which can move a channel by one step after rounding.
+    private static final int CHANNEL_TOLERANCE = 1;
+
+    // Native call budget tighter than the unbudgeted cost of the wave effects; the budgeted run is not compared to golden.
+    private static final int COMMIT_BUDGET = 8;
+    // Effects drawn at critical priority, which the committer writes past any budget.
+    private static final Set<EffectEngine.SpecialEffect> CRITICAL_EFFECTS =
+            EnumSet.of(EffectEngine.SpecialEffect.DAMAGE_FLASH, EffectEngine.SpecialEffect.LOW_HEALTH);
+
+    // Upper bound on native calls for any single frame of each effect.
+    private static final Map<EffectEngine.SpecialEffect, Integer> CALL_BUDGETS = new EnumMap<>(EffectEngine.SpecialEffect.class);
+
+    static {
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.DAMAGE_FLASH, 32);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.LOW_HEALTH, 2);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.UNDERWATER, 32);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.POISON, 10);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.WITHER, 12);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.FROZEN, 2);
+        CALL_BUDGETS.put(EffectEngine.SpecialEffect.NETHER_PORTAL, 32);
+    }
+
+    private GoldenFrames() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of("src/tools/golden");
+        boolean update = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dir" -> directory = Path.of(args[++i]);
+                case "--update" -> update = true;
+                default -> {
+                    System.err.println("Unknown argument " + args[i]);
+                    System.exit(64);
+                }
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (EffectEngine.SpecialEffect effect : EffectEngine.SpecialEffect.values()) {
+            if (effect == EffectEngine.SpecialEffect.NONE) {
+                continue;
+            }
+            Recording recording = record(effect);
+            Path file = directory.resolve(effect.name().toLowerCase(Locale.ROOT) + ".bin");
+            int budget = CALL_BUDGETS.get(effect);
+            System.out.printf(Locale.ROOT, "%-13s max %3d native calls/frame (budget %d), %5d bytes%n",
+                    effect, recording.maxCalls(), budget, recording.encoded.remaining());
+            if (recording.maxCalls() > budget) {
+                failures.add(String.format(Locale.ROOT, "%s: frame costs %d native calls, budget is %d", effect, recording.maxCalls(), budget));
+            }
+            int budgeted = record(effect, COMMIT_BUDGET).maxCalls();
+            System.out.printf(Locale.ROOT, "%-13s max %3d native calls/frame under a commit budget of %d%n", "", budgeted, COMMIT_BUDGET);
+            if (budgeted > COMMIT_BUDGET && !CRITICAL_EFFECTS.contains(effect)) {
+                failures.add(String.format(Locale.ROOT, "%s: frame costs %d native calls under a commit budget of %d", effect, budgeted, COMMIT_BUDGET));
+            }
+            if (update) {
+                Files.createDirectories(directory);
+                Files.write(file, toArray(recording.encoded));
+                continue;
+            }
+            if (!Files.exists(file)) {
+                failures.add(effect + ": missing golden file " + file + " (run with --update)");
+                continue;
+            }
+            String mismatch = compare(recording, ByteBuffer.wrap(Files.readAllBytes(file)));
+            if (mismatch != null) {
+                failures.add(effect + ": " + mismatch);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("Golden frame check failed: " + failure));
+            System.exit(1);
+        }
+        System.out.println(update ? "Golden frames updated" : "Golden frames match");
+    }
+
+    private static Recording record(EffectEngine.SpecialEffect effect) {
+        return record(effect, FrameCommitter.UNLIMITED);
+    }
+
+    private static Recording record(EffectEngine.SpecialEffect effect, int callBudget) {
+        ConfigManager config = new ConfigManager(Path.of(System.getProperty("java.io.tmpdir"), "glights-golden-defaults.json"));
+        config.load();
+        SimulatedCanvas canvas = new SimulatedCanvas(config);
+        EffectEngine engine = new EffectEngine(canvas, config, canvas::restoreBase, new Random(SEED));
+        RecordingLedBackend device = new RecordingLedBackend();
+        device.init();
+        FrameCommitter committer = new FrameCommitter(device);
+        PlayerTimeline timeline = PlayerTimeline.parse(scriptFor(effect));
+        PlayerState state = new PlayerState();
+
+        LedFrame frame = canvas.getFrame();
+        canvas.restoreBase();
+        committer.commit(frame);
+
+        Recording recording = new Recording();
+        ByteBuffer out = ByteBuffer.allocate(9 + TICKS * (2 + FrameStreamCodec.MAX_FRAME_BYTES));
+        out.putInt(MAGIC).put(VERSION).putShort((short) TICKS);
+        LedFrame previous = null;
+        for (int tick = 0; tick < TICKS; tick++) {
+            timeline.apply(tick, state);
+            engine.update(state);
+            int calls = committer.commit(frame, callBudget);
+            LedFrame snapshot = new LedFrame();
+            snapshot.copyFrom(frame);
+            recording.frames.add(snapshot);
+            recording.calls.add(calls);
+            out.putShort((short) calls);
+            FrameStreamCodec.encode(previous, snapshot, out);
+            previous = snapshot;
+        }
+        out.flip();
+        recording.encoded = out;
+        return recording;
+    }
+
+    private static String scriptFor(EffectEngine.SpecialEffect effect) {
+        return switch (effect) {
+            case DAMAGE_FLASH -> "0 damage";
+            case LOW_HEALTH -> "0 health 3";
+            case UNDERWATER -> "0 underwater on";
+            case POISON -> "0 poison on";
+            case WITHER -> "0 wither on";
+            case FROZEN -> "0 frozen on";
+            case NETHER_PORTAL -> "0 portal on";
+            case NONE -> "";
+        };
+    }
+
+    private static String compare(Recording recording, ByteBuffer golden) {
+        if (golden.remaining() < 7 || golden.getInt() != MAGIC || golden.get() != VERSION) {
+            return "golden file has an unknown format";
+        }
+        int ticks = golden.getShort() & 0xFFFF;
+        if (ticks != recording.frames.size()) {
+            return "golden file holds " + ticks + " ticks, expected " + recording.frames.size();
+        }
+        LedFrame expected = new LedFrame();
+        for (int tick = 0; tick < ticks; tick++) {
+            int goldenCalls = golden.getShort() & 0xFFFF;
+            FrameStreamCodec.decode(golden, expected);
+            LedFrame actual = recording.frames.get(tick);
+            String difference = difference(expected, actual);
+            if (difference != null) {
+                return "tick " + tick + ": " + difference;
+            }
+            if (recording.calls.get(tick) > goldenCalls) {
+                System.out.printf(Locale.ROOT, "  note: tick %d costs %d native calls, golden recorded %d%n",
+                        tick, recording.calls.get(tick), goldenCalls);
+            }
+        }
+        return null;
+    }
+
+    private static String difference(LedFrame expected, LedFrame actual) {
+        if (!close(expected.getBackground(), actual.getBackground())) {
+            return String.format(Locale.ROOT, "background %06X, golden %06X", actual.getBackground(), expected.getBackground());
+        }
+        if (expected.isMouseMirror() != actual.isMouseMirror() || expected.getEffect() != actual.getEffect()) {
+            return "device mode differs from golden";
+        }
+        for (int code = 1; code < LedFrame.KEY_SLOTS; code++) {
+            if (!close(expected.getScanCode(code), actual.getScanCode(code))) {
+                return String.format(Locale.ROOT, "scan code 0x%X is %06X, golden %06X", code, actual.getScanCode(code), expected.getScanCode(code));
+            }
+            if (!close(expected.getKeyName(code), actual.getKeyName(code))) {
+                return String.format(Locale.ROOT, "key 0x%X is %06X, golden %06X", code, actual.getKeyName(code), expected.getKeyName(code));
+            }
+        }
+        return null;
+    }
+
+    private static boolean close(int expected, int actual) {
+        if (expected == LedFrame.UNSET || actual == LedFrame.UNSET) {
+            return expected == actual;
+        }
+        for (int shift = 0; shift <= 16; shift += 8) {
+            if (Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF)) > CHANNEL_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static final class Recording {
+        private final List<LedFrame> frames = new ArrayList<>();
+        private final List<Integer> calls = new ArrayList<>();
+        private ByteBuffer encoded;
+
+        private int maxCalls() {
+            int max = 0;
+            for (int value : calls) {
+                max = Math.max(max, value);
+            }
+            return max;
+        }
+    }
+}
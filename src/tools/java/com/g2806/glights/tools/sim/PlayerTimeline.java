@@ -0,0 +1,128 @@
+package com.g2806.glights.tools.sim;
+
+import com.g2806.glights.client.effect.PlayerState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A scripted sequence of player-state changes. One event per line, {@code <tick> <action> [value]}, with
+ * {@code #} comments. Actions: {@code damage}, {@code health <hp>}, {@code underwater|poison|wither|frozen|portal|creative on|off}
+ * and {@code end}. Hurt time decays one per tick as it does in game.
+ */
+public final class PlayerTimeline {
+    public static final String DEFAULT_SCRIPT = String.join("\n",
+            "# idle, a hit, then each status effect in turn",
+            "20 damage",
+            "60 underwater on",
+            "160 underwater off",
+            "170 poison on",
+            "270 poison off",
+            "280 wither on",
+            "380 wither off",
+            "390 frozen on",
+            "470 frozen off",
+            "480 portal on",
+            "580 portal off",
+            "590 health 3",
+            "650 health 20",
+            "660 damage",
+            "700 end");
+
+    private static final int HURT_TIME = 10;
+    private static final int FROZEN_TICKS = 140;
+
+    private final List<Event> events;
+    private final int length;
+    private int nextEvent;
+
+    private PlayerTimeline(List<Event> events, int length) {
+        this.events = events;
+        this.length = length;
+    }
+
+    public static PlayerTimeline parse(String script) {
+        List<Event> events = new ArrayList<>();
+        int length = 0;
+        int lineNumber = 0;
+        for (String raw : script.split("\n")) {
+            lineNumber++;
+            String line = raw.strip();
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment).strip();
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected '<tick> <action> [value]'");
+            }
+            int tick = Integer.parseInt(parts[0]);
+            String action = parts[1].toLowerCase(Locale.ROOT);
+            String value = parts.length > 2 ? parts[2].toLowerCase(Locale.ROOT) : "";
+            if (!isKnown(action)) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown action '" + action + "'");
+            }
+            events.add(new Event(tick, action, value));
+            length = Math.max(length, tick + 1);
+        }
+        events.sort((a, b) -> Integer.compare(a.tick, b.tick));
+        return new PlayerTimeline(List.copyOf(events), length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        nextEvent = 0;
+    }
+
+    // Advances state to the given tick; ticks must be applied in increasing order.
+    public void apply(int tick, PlayerState state) {
+        if (state.getHurtTime() > 0) {
+            state.setHurtTime(state.getHurtTime() - 1);
+        }
+        while (nextEvent < events.size() && events.get(nextEvent).tick <= tick) {
+            Event event = events.get(nextEvent++);
+            boolean on = !"off".equals(event.value);
+            switch (event.action) {
+                case "damage" -> state.setHurtTime(HURT_TIME);
+                case "health" -> {
+                    state.setHealth(Float.parseFloat(event.value));
+                    state.setDying(state.getHealth() <= 0.0F);
+                }
+                case "underwater" -> state.setUnderwater(on);
+                case "poison" -> state.setPoisoned(on);
+                case "wither" -> state.setWithered(on);
+                case "frozen" -> state.setTicksFrozen(on ? FROZEN_TICKS : 0);
+                case "portal" -> state.setInNetherPortal(on);
+                case "creative" -> state.setCreativeOrSpectator(on);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static boolean isKnown(String action) {
+        return switch (action) {
+            case "damage", "health", "underwater", "poison", "wither", "frozen", "portal", "creative", "end" -> true;
+            default -> false;
+        };
+    }
+
+    private static final class Event {
+        private final int tick;
+        private final String action;
+        private final String value;
+
+        private Event(int tick, String action, String value) {
+            this.tick = tick;
+            this.action = action;
+            this.value = value;
+        }
+    }
+}
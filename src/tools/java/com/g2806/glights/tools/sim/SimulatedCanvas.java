@@ -0,0 +1,103 @@
+package com.g2806.glights.tools.sim;
+
+import com.g2806.glights.client.config.ConfigManager;
+import com.g2806.glights.client.config.ConfigSnapshot;
+import com.g2806.glights.client.effect.EffectCanvas;
+import com.g2806.glights.client.led.LedFrame;
+
+import java.util.Arrays;
+
+// Stands in for LightHandler: the same frame semantics, with a fixed vanilla-like set of bound keys as the base lighting.
+public final class SimulatedCanvas implements EffectCanvas {
+    private static final String CATEGORY_MOVEMENT = "key.categories.movement";
+    private static final String CATEGORY_GAMEPLAY = "key.categories.gameplay";
+    private static final String CATEGORY_MULTIPLAYER = "key.categories.multiplayer";
+    private static final String CATEGORY_MISC = "key.categories.misc";
+
+    // Scan code and category for the default vanilla bindings.
+    private static final Object[][] BOUND_KEYS = {
+            {0x11, ConfigManager.CATEGORY_WASD}, {0x1E, ConfigManager.CATEGORY_WASD}, {0x1F, ConfigManager.CATEGORY_WASD},
+            {0x20, ConfigManager.CATEGORY_WASD}, {0x39, CATEGORY_MOVEMENT}, {0x2A, CATEGORY_MOVEMENT}, {0x1D, CATEGORY_MOVEMENT},
+            {0x02, ConfigManager.CATEGORY_INVENTORY}, {0x03, ConfigManager.CATEGORY_INVENTORY}, {0x04, ConfigManager.CATEGORY_INVENTORY},
+            {0x05, ConfigManager.CATEGORY_INVENTORY}, {0x06, ConfigManager.CATEGORY_INVENTORY}, {0x07, ConfigManager.CATEGORY_INVENTORY},
+            {0x08, ConfigManager.CATEGORY_INVENTORY}, {0x09, ConfigManager.CATEGORY_INVENTORY}, {0x0A, ConfigManager.CATEGORY_INVENTORY},
+            {0x12, ConfigManager.CATEGORY_INVENTORY}, {0x21, ConfigManager.CATEGORY_INVENTORY}, {0x10, CATEGORY_GAMEPLAY},
+            {0x26, CATEGORY_MISC}, {0x14, CATEGORY_MULTIPLAYER}, {0x35, CATEGORY_MULTIPLAYER}, {0x0F, CATEGORY_MULTIPLAYER},
+            {0x3B, CATEGORY_MISC}, {0x3C, CATEGORY_MISC}, {0x3D, CATEGORY_MISC}, {0x3F, CATEGORY_MISC}, {0x57, CATEGORY_MISC}
+    };
+
+    private final LedFrame frame = new LedFrame();
+    private final ConfigManager config;
+    private final boolean[] lit = new boolean[LedFrame.KEY_SLOTS];
+
+    public SimulatedCanvas(ConfigManager config) {
+        this.config = config;
+    }
+
+    public LedFrame getFrame() {
+        return frame;
+    }
+
+    public void restoreBase() {
+        frame.setEffect(LedFrame.EFFECT_NONE, 0, 0);
+        ConfigSnapshot settings = config.current();
+        frame.fill(settings.isBackgroundFillEnabled() ? settings.getBackgroundFillColor() : 0x000000);
+        frame.setMouseMirror(settings.isMouseLightingEnabled());
+        Arrays.fill(lit, false);
+        for (Object[] key : BOUND_KEYS) {
+            setSolidColorOnScanCode((Integer) key[0], settings.getColorForCategory((String) key[1]));
+        }
+        for (int i = 0; i < settings.getKeyOverrideCount(); i++) {
+            int scanCode = settings.getKeyOverrideCode(i);
+            setSolidColorOnScanCode(scanCode, settings.getKeyOverride(scanCode));
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return true;
+    }
+
+    @Override
+    public void setDrawPriority(int priority) {
+        frame.setDrawPriority(priority);
+    }
+
+    @Override
+    public void setSolidColor(int color) {
+        frame.fill(color);
+        frame.setMouseMirror(config.current().isMouseLightingEnabled());
+    }
+
+    @Override
+    public void setSolidColorOnScanCode(int scanCode, int color) {
+        if (LedFrame.inRange(scanCode)) {
+            lit[scanCode] = true;
+            frame.setScanCode(scanCode, color);
+        }
+    }
+
+    @Override
+    public void stopEffects() {
+        if (frame.getEffect() != LedFrame.EFFECT_NONE) {
+            frame.setEffect(LedFrame.EFFECT_NONE, 0, 0);
+        }
+    }
+
+    @Override
+    public int[] getLitScanCodes() {
+        int count = 0;
+        for (boolean value : lit) {
+            if (value) {
+                count++;
+            }
+        }
+        int[] scanCodes = new int[count];
+        for (int code = 0, i = 0; code < lit.length; code++) {
+            if (lit[code]) {
+                scanCodes[i++] = code;
+            }
+        }
+        return scanCodes;
+    }
+}